@@ -0,0 +1,22 @@
+package com.krisped;
+
+/** Hvordan sensor‑oppdateringer leveres til HA. */
+public enum EventMode
+{
+    PER_SENSOR("Per sensor"),
+    BATCHED("Batched per tick"),
+    BOTH("Both");
+
+    private final String label;
+
+    EventMode(String label)
+    {
+        this.label = label;
+    }
+
+    @Override
+    public String toString()
+    {
+        return label;
+    }
+}
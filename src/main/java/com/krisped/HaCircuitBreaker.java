@@ -0,0 +1,83 @@
+package com.krisped;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bryter rundt kall mot HA. Etter «Failures before pause» feil på rad åpnes
+ * den og {@link HaPublisher} slutter å sende; i stedet går ett lett prøvekall
+ * (GET /api/) med økende intervall. Lykkes det, lukkes bryteren igjen.
+ * <pre>
+ *   CLOSED ──N feil──▶ OPEN ──timer──▶ HALF_OPEN ──ok──▶ CLOSED
+ *                        ▲                  │
+ *                        └──────feil────────┘
+ * </pre>
+ */
+@Slf4j
+public class HaCircuitBreaker
+{
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final long PROBE_MIN_MS = 2_000;
+    private static final long PROBE_MAX_MS = 60_000;
+
+    private State state = State.CLOSED;
+    private int   failures;                      // på rad, kun i CLOSED
+    private long  probeDelayMs = PROBE_MIN_MS;
+    private long  openedAt;
+    private long  trips;
+
+    /** Skal vanlige kall gå ut nå? */
+    public synchronized boolean allowRequest()
+    {
+        return state == State.CLOSED;
+    }
+
+    public synchronized void onSuccess()
+    {
+        if (state == State.CLOSED)
+            failures = 0;
+    }
+
+    /** Registrerer en feil; {@code true} når akkurat denne feilen åpnet bryteren. */
+    public synchronized boolean onFailure(int threshold)
+    {
+        if (state != State.CLOSED || ++failures < threshold)
+            return false;
+        state    = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        trips++;
+        log.warn("HA svarer ikke ({} feil på rad) – pauser sending", failures);
+        return true;
+    }
+
+    /** Ventetid før neste prøvekall; dobles for hver mislykket prøve. */
+    public synchronized long nextProbeDelay()
+    {
+        long d = probeDelayMs;
+        probeDelayMs = Math.min(probeDelayMs * 2, PROBE_MAX_MS);
+        return d;
+    }
+
+    public synchronized void probing()
+    {
+        state = State.HALF_OPEN;
+    }
+
+    public synchronized void probeFailed()
+    {
+        state = State.OPEN;
+        log.debug("HA‑prøvekall feilet – ny prøve om {} ms", probeDelayMs);
+    }
+
+    public synchronized void probeSucceeded()
+    {
+        log.info("HA svarer igjen etter {} s – gjenopptar sending",
+                (System.currentTimeMillis() - openedAt) / 1000);
+        state        = State.CLOSED;
+        failures     = 0;
+        probeDelayMs = PROBE_MIN_MS;
+    }
+
+    public synchronized State state() { return state; }
+    public synchronized long  trips() { return trips; }
+}
@@ -0,0 +1,110 @@
+package com.krisped;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import okhttp3.HttpUrl;
+
+/**
+ * Ferdig oppslåtte HA‑adresser og identitet. Regex, String.format og
+ * "Bearer "‑konkatenering skjer kun når haUrl/haToken endres eller
+ * spilleren bytter navn – ikke pr. sending.
+ */
+public class HaEndpoints
+{
+    private static final Pattern SANITIZE =
+            Pattern.compile("[^a-z0-9]");
+    private static final String UNKNOWN = "unknown";
+
+    private final HomeAssistantConfig config;
+
+    private volatile HttpUrl apiUrl;             // {base}/api/ – prøvekall
+    private volatile String  authorization;
+    private volatile String  webSocketUrl;
+    private String           playerName;         // rå navn sist brukt til userId
+
+    /*
+     * Cachene hører til verdien de er bygd fra og byttes ut hele: en oppføring
+     * bygd fra gammel bruker/vert havner i det gamle kartet, aldri i det nye.
+     */
+    private volatile Cache<String, String>  eventTypes = new Cache<>(UNKNOWN);     // topic → kp_runelite_{topic}_{user}
+    private volatile Cache<HttpUrl, HttpUrl> eventUrls = new Cache<>(null);        // event → ferdig HttpUrl; key null = ugyldig base
+
+    private static final class Cache<K, V>
+    {
+        final K key;
+        final Map<String, V> values = new ConcurrentHashMap<>();
+
+        Cache(K key)
+        {
+            this.key = key;
+        }
+    }
+
+    public HaEndpoints(HomeAssistantConfig config)
+    {
+        this.config = config;
+        reload();
+    }
+
+    /** Leser haUrl/haToken på nytt (ConfigChanged). */
+    public void reload()
+    {
+        String url    = config.haUrl().replaceAll("/+$", "");
+        HttpUrl base  = HttpUrl.parse(url);
+        apiUrl        = base == null ? null : base.newBuilder().addPathSegments("api/").build();
+        authorization = "Bearer " + config.haToken();
+        webSocketUrl  = url.replaceFirst("^http", "ws") + "/api/websocket";
+        eventUrls     = new Cache<>(base);
+    }
+
+    /** Oppdaterer brukeridentiteten; no‑op når navnet er uendret. */
+    public synchronized void updatePlayer(String name)
+    {
+        if (name == null || name.equals(playerName))
+            return;
+        playerName = name;
+        eventTypes = new Cache<>(SANITIZE.matcher(name.toLowerCase()).replaceAll(""));
+    }
+
+    public String userId()        { return eventTypes.key; }
+    public String authorization() { return authorization; }
+    public String webSocketUrl()  { return webSocketUrl; }
+    public HttpUrl apiUrl()       { return apiUrl; }
+
+    /** kp_runelite_{topic}_{user} for gjeldende bruker. */
+    public String eventType(String topic)
+    {
+        Cache<String, String> c = eventTypes;
+        String e = c.values.get(topic);          // get først: ingen lambda‑allokering i hot path
+        if (e == null)
+        {
+            e = eventType(topic, c.key);
+            c.values.put(topic, e);
+        }
+        return e;
+    }
+
+    public static String eventType(String topic, String user)
+    {
+        return "kp_runelite_" + topic + "_" + user;
+    }
+
+    /** {base}/api/events/{event}, eller null når haUrl ikke er en gyldig URL. */
+    public HttpUrl eventUrl(String event)
+    {
+        Cache<HttpUrl, HttpUrl> c = eventUrls;
+        if (c.key == null)
+            return null;
+        HttpUrl url = c.values.get(event);
+        if (url == null)
+        {
+            url = c.key.newBuilder()
+                    .addPathSegments("api/events")
+                    .addPathSegment(event)
+                    .build();
+            c.values.put(event, url);
+        }
+        return url;
+    }
+}
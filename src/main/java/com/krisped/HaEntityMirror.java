@@ -0,0 +1,300 @@
+package com.krisped;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Lokal kopi av utvalgte HA‑entiteter (lys, alarm, tilstedeværelse …) fra den
+ * komprimerte subscribe_entities‑strømmen: «a» = hele tilstanden (første
+ * svar og nye entiteter), «c» = diff med «+» (endret) og «-» (fjernede
+ * attributter), «r» = fjernede entiteter.
+ * <p>
+ * Diffene skrives rett inn i eksisterende {@link Entity}‑objekter mens rammen
+ * leses (lesetråden) – ingen nye objekter pr. oppdatering. Lesing fra andre
+ * tråder (overlay, klienttråden) er trygg og uten nettverk; lyttere varsles
+ * på handler‑tråden i {@link HaSubscriptions}.
+ * <p>
+ * Faller socketen er speilet {@link #isStale() utdatert} til første «a» på
+ * ny tilkobling; den er hele utvalget, så entiteter som ble borte i mellomtiden
+ * fjernes da (og meldes som endret).
+ */
+public class HaEntityMirror
+{
+    /** Én entitet; endres på plass. */
+    public static final class Entity
+    {
+        private final String id;
+        private volatile String state;
+        private final Map<String, String> attributes = new ConcurrentHashMap<>();  // verdi = JSON‑tekst for lister/objekt
+        private volatile double lastChanged, lastUpdated;                          // sekunder siden epoch
+
+        private Entity(String id)
+        {
+            this.id = id;
+        }
+
+        public String id()                      { return id; }
+        public String state()                   { return state; }
+        public String attribute(String name)    { return attributes.get(name); }
+        public Map<String, String> attributes() { return Collections.unmodifiableMap(attributes); }
+        public double lastChanged()             { return lastChanged; }
+        public double lastUpdated()             { return lastUpdated; }
+    }
+
+    private final Map<String, Entity> entities = new ConcurrentHashMap<>();
+    private final List<Consumer<List<String>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean stale;
+
+    /** Entiteten, eller null når den ikke (ennå) er speilet. */
+    public Entity get(String entityId)
+    {
+        return entities.get(entityId);
+    }
+
+    /** Tilstanden («on», «armed_away» …), eller null. */
+    public String state(String entityId)
+    {
+        Entity e = entities.get(entityId);
+        return e != null ? e.state : null;
+    }
+
+    /** true fra socketen faller til HA har sendt full tilstand på nytt. */
+    public boolean isStale()
+    {
+        return stale;
+    }
+
+    /** Varsles med id‑ene som endret seg i én ramme (handler‑tråden). */
+    public void addListener(Consumer<List<String>> listener)
+    {
+        listeners.add(listener);
+    }
+
+    /** Abonnement for {@code entityIds} – gis til {@link HaWsClient#subscribe}. */
+    public HaSubscriptions.Subscription<List<String>> subscription(List<String> entityIds)
+    {
+        return HaSubscriptions.entities(entityIds, this::apply, this::notifyListeners)
+                .onDetach(() -> stale = true);
+    }
+
+    /** Tømmer speilet (nytt utvalg av entiteter). */
+    public void clear()
+    {
+        entities.clear();
+    }
+
+    /* ───────── lesetråden ───────── */
+
+    /* leser og bruker én «event»; returnerer endrede id‑er for lytterne */
+    List<String> apply(JsonReader in) throws IOException
+    {
+        List<String> changed = new ArrayList<>(4);
+        if (in.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            in.skipValue();
+            return changed;
+        }
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "a":
+                    int from = changed.size();
+                    readEntities(in, true, changed);
+                    if (stale)
+                        prune(new HashSet<>(changed.subList(from, changed.size())), changed);
+                    break;
+                case "c": readEntities(in, false, changed); break;
+                case "r":
+                    in.beginArray();
+                    while (in.hasNext())
+                    {
+                        String id = in.nextString();
+                        if (entities.remove(id) != null)
+                            changed.add(id);
+                    }
+                    in.endArray();
+                    break;
+                default:  in.skipValue();
+            }
+        }
+        in.endObject();
+        return changed;
+    }
+
+    /* første «a» etter ny tilkobling er hele utvalget: fjern det som forsvant mens vi var nede */
+    private void prune(Set<String> fresh, List<String> changed)
+    {
+        for (Iterator<String> it = entities.keySet().iterator(); it.hasNext(); )
+        {
+            String id = it.next();
+            if (!fresh.contains(id))
+            {
+                it.remove();
+                changed.add(id);
+            }
+        }
+        stale = false;
+    }
+
+    private void readEntities(JsonReader in, boolean full, List<String> changed) throws IOException
+    {
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String id = in.nextName();
+            Entity e  = entities.computeIfAbsent(id, Entity::new);
+            if (full)
+            {
+                Set<String> names = new HashSet<>();
+                readState(in, e, names);
+                e.attributes.keySet().retainAll(names);   // «a» er hele tilstanden; aldri tomt kart underveis
+            }
+            else
+            {
+                readDiff(in, e);
+            }
+            changed.add(id);
+        }
+        in.endObject();
+    }
+
+    /* {"+": {s, a, lc, lu, c}, "-": {"a": [navn …]}} */
+    private static void readDiff(JsonReader in, Entity e) throws IOException
+    {
+        in.beginObject();
+        while (in.hasNext())
+        {
+            String op = in.nextName();
+            if ("+".equals(op))
+            {
+                readState(in, e, null);
+            }
+            else if ("-".equals(op))
+            {
+                in.beginObject();
+                while (in.hasNext())
+                {
+                    if ("a".equals(in.nextName()))
+                    {
+                        in.beginArray();
+                        while (in.hasNext())
+                            e.attributes.remove(in.nextString());
+                        in.endArray();
+                    }
+                    else
+                    {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+            }
+            else
+            {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /*
+     * {s, a, lc, lu, c} – felt som mangler beholder verdien; lu sendes kun når
+     * den avviker fra lc. Attributtnavnene som ble lest legges i {@code names}.
+     */
+    private static void readState(JsonReader in, Entity e, Set<String> names) throws IOException
+    {
+        boolean hasLc = false, hasLu = false;
+        double  lc    = 0, lu = 0;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "s":
+                    e.state = scalar(in);
+                    break;
+                case "a":
+                    in.beginObject();
+                    while (in.hasNext())
+                    {
+                        String name  = in.nextName();
+                        String value = value(in);
+                        if (names != null)
+                            names.add(name);
+                        if (value == null)
+                            e.attributes.remove(name);   // ConcurrentHashMap tåler ikke null
+                        else
+                            e.attributes.put(name, value);
+                    }
+                    in.endObject();
+                    break;
+                case "lc":
+                    lc    = in.nextDouble();
+                    hasLc = true;
+                    break;
+                case "lu":
+                    lu    = in.nextDouble();
+                    hasLu = true;
+                    break;
+                default:
+                    in.skipValue();                       // c (kontekst)
+            }
+        }
+        in.endObject();
+
+        if (hasLc)
+            e.lastChanged = lc;
+        if (hasLu)
+            e.lastUpdated = lu;
+        else if (hasLc)
+            e.lastUpdated = lc;
+    }
+
+    /* tall/tekst/bool som tekst; null for JSON null */
+    private static String scalar(JsonReader in) throws IOException
+    {
+        switch (in.peek())
+        {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            default:
+                return in.nextString();                   // også tall, uten avrunding
+        }
+    }
+
+    /* attributtverdi: skalarer som tekst, lister/objekt som kompakt JSON */
+    private static String value(JsonReader in) throws IOException
+    {
+        JsonToken t = in.peek();
+        if (t == JsonToken.BEGIN_ARRAY || t == JsonToken.BEGIN_OBJECT)
+            return JsonParser.parseReader(in).toString();
+        return scalar(in);
+    }
+
+    /* ───────── handler‑tråden ───────── */
+
+    private void notifyListeners(List<String> changed)
+    {
+        if (changed.isEmpty())
+            return;
+        for (Consumer<List<String>> l : listeners)
+            l.accept(changed);
+    }
+}
@@ -0,0 +1,277 @@
+package com.krisped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append‑only utboks på disk for tilstandsoverganger HA ikke fikk levert.
+ * Én minne‑mappet segmentfil med fast størrelse:
+ * <pre>
+ *   header : int magic, int writePos
+ *   record : int len, byte live, short keyLen, key, short eventLen, event, body
+ * </pre>
+ * Leverte poster merkes døde på plass; når fila er full flyttes levende
+ * poster til starten (compact), og er det fortsatt ikke plass kastes de eldste.
+ */
+@Slf4j
+public class HaOutbox
+{
+    private static final int MAGIC  = 0x4b504f42;   // "KPOB"
+    private static final int HEADER = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buf;
+    private final int capacity;
+    private int writePos;
+    private int liveCount;
+    private int generation;                          // øker ved compact – gamle posisjoner blir ugyldige
+    private boolean closed;
+
+    /** Post som venter på å bli sendt på nytt. */
+    public static final class Entry
+    {
+        final int    pos;
+        final int    generation;
+        final String key;
+        final String event;
+        final byte[] body;
+
+        Entry(int pos, int generation, String key, String event, byte[] body)
+        {
+            this.pos        = pos;
+            this.generation = generation;
+            this.key        = key;
+            this.event      = event;
+            this.body       = body;
+        }
+    }
+
+    public HaOutbox(Path file, int capacity) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        this.capacity = capacity;
+        this.channel  = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buf      = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        load();
+    }
+
+    /* ───────── API ───────── */
+
+    /** Legger til en post; kompakterer/kaster eldste ved behov. */
+    public synchronized void append(String key, String event, byte[] body)
+    {
+        if (closed)
+            return;
+
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] e = event.getBytes(StandardCharsets.UTF_8);
+        int len  = 1 + 2 + k.length + 2 + e.length + body.length;
+        if (HEADER + 4 + len > capacity)
+        {
+            log.warn("HA‑utboks: post for {} er større enn utboksen ({} B)", event, capacity);
+            return;
+        }
+
+        if (writePos + 4 + len > capacity)
+            compact();
+        while (writePos + 4 + len > capacity)
+            dropOldest();
+
+        buf.putInt(writePos, len);
+        buf.put(writePos + 4, (byte) 1);
+        int p = writePos + 5;
+        buf.putShort(p, (short) k.length);
+        put(p + 2, k);
+        p += 2 + k.length;
+        buf.putShort(p, (short) e.length);
+        put(p + 2, e);
+        p += 2 + e.length;
+        put(p, body);
+
+        writePos += 4 + len;
+        liveCount++;
+        buf.putInt(4, writePos);
+    }
+
+    /** Levende poster, eldst først, koalescert: kun nyeste pr. nøkkel (eldre merkes døde). */
+    public synchronized List<Entry> live()
+    {
+        Map<String, Entry> byKey = new LinkedHashMap<>();
+        for (int pos = HEADER; pos < writePos; pos += 4 + buf.getInt(pos))
+        {
+            if (buf.get(pos + 4) == 0)
+                continue;
+            Entry en = read(pos);
+            Entry older = byKey.remove(en.key);
+            if (older != null)
+                kill(older.pos);
+            byKey.put(en.key, en);
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    /** HA har tatt imot posten. */
+    public synchronized void markDone(Entry en)
+    {
+        if (!closed && en.generation == generation)
+            kill(en.pos);
+    }
+
+    /** En nyere verdi for {@code key} er levert – eldre poster skal ikke spilles av. */
+    public synchronized void supersede(String key)
+    {
+        if (closed || liveCount == 0)
+            return;
+        for (int pos = HEADER; pos < writePos; pos += 4 + buf.getInt(pos))
+            if (buf.get(pos + 4) != 0 && read(pos).key.equals(key))
+                kill(pos);
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return liveCount == 0;
+    }
+
+    public synchronized void close()
+    {
+        if (closed)
+            return;
+        closed = true;
+        buf.force();
+        try
+        {
+            channel.close();
+        }
+        catch (IOException ex)
+        {
+            log.debug("HA‑utboks: lukking feilet", ex);
+        }
+    }
+
+    /* ───────── intern ───────── */
+
+    private void load()
+    {
+        if (buf.getInt(0) != MAGIC)
+        {
+            reset();
+            return;
+        }
+
+        int end = buf.getInt(4);
+        if (end < HEADER || end > capacity)
+        {
+            reset();
+            return;
+        }
+
+        /* gå gjennom postene; stopp ved første ødelagte (avbrutt skriving) */
+        int pos = HEADER;
+        while (pos + 4 <= end)
+        {
+            int len = buf.getInt(pos);
+            if (len < 5 || pos + 4 + len > end)
+                break;
+            if (buf.get(pos + 4) != 0)
+                liveCount++;
+            pos += 4 + len;
+        }
+        writePos = pos;
+        buf.putInt(4, writePos);
+        if (liveCount > 0)
+            log.info("HA‑utboks: {} usendte hendelser fra forrige økt", liveCount);
+    }
+
+    private void reset()
+    {
+        buf.putInt(0, MAGIC);
+        writePos  = HEADER;
+        liveCount = 0;
+        buf.putInt(4, writePos);
+    }
+
+    private Entry read(int pos)
+    {
+        int len = buf.getInt(pos);
+        int p   = pos + 5;
+        byte[] k = new byte[buf.getShort(p)];
+        get(p + 2, k);
+        p += 2 + k.length;
+        byte[] e = new byte[buf.getShort(p)];
+        get(p + 2, e);
+        p += 2 + e.length;
+        byte[] body = new byte[pos + 4 + len - p];
+        get(p, body);
+        return new Entry(pos, generation,
+                new String(k, StandardCharsets.UTF_8), new String(e, StandardCharsets.UTF_8), body);
+    }
+
+    private void kill(int pos)
+    {
+        if (buf.get(pos + 4) == 0)
+            return;
+        buf.put(pos + 4, (byte) 0);
+        if (--liveCount == 0)
+        {
+            writePos = HEADER;                   // alt levert: start forfra
+            buf.putInt(4, writePos);
+            generation++;
+        }
+    }
+
+    /** Flytter levende poster til starten av fila. */
+    private void compact()
+    {
+        int dst = HEADER;
+        for (int src = HEADER; src < writePos; )
+        {
+            int size = 4 + buf.getInt(src);
+            if (buf.get(src + 4) != 0)
+            {
+                if (dst != src)
+                {
+                    byte[] rec = new byte[size];
+                    get(src, rec);
+                    put(dst, rec);
+                }
+                dst += size;
+            }
+            src += size;
+        }
+        writePos = dst;
+        buf.putInt(4, writePos);
+        generation++;
+    }
+
+    /** Full selv etter compact: kast eldste levende post. */
+    private void dropOldest()
+    {
+        compact();                               // eldste levende ligger nå først
+        log.debug("HA‑utboks full – kaster eldste post");
+        kill(HEADER);
+        compact();
+    }
+
+    /* absolutt bulk‑get/put uten å flytte bufferens posisjon (Java 11) */
+    private void get(int pos, byte[] dst)
+    {
+        ((ByteBuffer) buf.duplicate().position(pos)).get(dst);
+    }
+
+    private void put(int pos, byte[] src)
+    {
+        ((ByteBuffer) buf.duplicate().position(pos)).put(src);
+    }
+}
@@ -0,0 +1,763 @@
+package com.krisped;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Felles utgående kø mot HA: sensorer fyller en {@link #payload()} og leverer
+ * (topic, payload), og kun nyeste payload pr. topic ligger og venter. En egen
+ * sender‑tråd tømmer køen med maks «Max in-flight requests» samtidige kall;
+ * blir køen full kastes oppdateringer etter {@link OverflowPolicy}.
+ * Uendrede verdier sendes ikke på nytt før neste {@link #reassert()}.
+ * I batch‑modus samles alt fram til {@link #flushBatch()} i ett
+ * kp_runelite_state_{user}‑event. Med «Send over WebSocket» går eventene som
+ * fire_event på {@link HaWsClient}, og REST brukes bare når socketen er nede.
+ * Tilstandsoverganger HA ikke tok imot legges i {@link HaOutbox} og spilles av
+ * med eksponentiell backoff; nivå‑verdier sendes bare på nytt ved neste endring.
+ * Feiler for mange kall på rad åpnes {@link HaCircuitBreaker}: køen står stille
+ * mens GET /api/ prøves, og når HA svarer kjøres én samlet resync.
+ */
+@Slf4j
+public class HaPublisher
+{
+    private static final MediaType JSON =
+            MediaType.get("application/json; charset=utf-8");
+    private static final long BACKOFF_MIN_MS = 1_000;
+    private static final long BACKOFF_MAX_MS = 300_000;
+
+    private final OkHttpClient http;
+    private final HomeAssistantConfig config;
+    private final HaEndpoints endpoints;
+    private final HaOutbox outbox;               // null = ingen disk‑utboks
+    private final HaCircuitBreaker breaker = new HaCircuitBreaker();
+
+    /* nøkkel → siste ventende melding, i innsettingsrekkefølge */
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    /* nøkkel → siste verdi for neste batch (samme lås som pending) */
+    private final Map<String, Pending> batch = new LinkedHashMap<>();
+    /* utboks‑nøkkel → overgang sendt uten svar ennå; parkeres ved shutDown (samme lås) */
+    private final Map<String, Unconfirmed> unconfirmed = new LinkedHashMap<>();
+    /* nøkkel → sist sendte payload (endringsdeteksjon) */
+    private final Map<String, byte[]> lastSent = new ConcurrentHashMap<>();
+    /* én gjenbrukt skriver pr. tråd: sensortråden (sensorer, heartbeat, resync) og «Offline» fra shutDown */
+    private final ThreadLocal<JsonPayload> payloads = ThreadLocal.withInitial(JsonPayload::new);
+    private final ScheduledThreadPoolExecutor sender = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "kp-ha-publisher");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean drainScheduled;
+    private boolean batchReady;
+    private int     inFlight;
+    private boolean replayScheduled;
+    private boolean replaying;               // avspillingsrunde ute hos HA – drain() venter
+    private long    backoffMs = BACKOFF_MIN_MS;
+    private volatile HaWsClient ws;
+    private volatile Runnable onRecovered;
+
+    /* tellere */
+    private final AtomicLong sent       = new AtomicLong();
+    private final AtomicLong failed     = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong dropped    = new AtomicLong();
+    private final AtomicLong parked     = new AtomicLong();
+    private final AtomicLong replayed   = new AtomicLong();
+
+    public HaPublisher(
+            OkHttpClient http,
+            HomeAssistantConfig config,
+            HaEndpoints endpoints,
+            HaOutbox outbox)
+    {
+        this.http      = http;
+        this.config    = config;
+        this.endpoints = endpoints;
+        this.outbox    = outbox;
+        sender.setExecuteExistingDelayedTasksAfterShutdownPolicy(false); // ventende backoff stopper ikke shutDown
+
+        if (outbox != null && !outbox.isEmpty())
+        {
+            synchronized (pending)
+            {
+                scheduleReplay(0);               // rester fra forrige økt
+            }
+        }
+    }
+
+    public void setWebSocket(HaWsClient ws)
+    {
+        this.ws = ws;
+    }
+
+    /** Kjøres (på publisher‑tråden) når HA svarer igjen etter et brudd – send alt på nytt. */
+    public void setOnRecovered(Runnable onRecovered)
+    {
+        this.onRecovered = onRecovered;
+    }
+
+    /* ───────── API for sensorer ───────── */
+
+    /** Tom, gjenbrukt payload for kallende tråd – fyll med put(..) og gi til {@link #publish}. */
+    public JsonPayload payload()
+    {
+        return payloads.get().begin();
+    }
+
+    /** Nivå‑verdi (energi, special …) til kp_runelite_{topic}_{user}; kastes først ved full kø. */
+    public void publish(String topic, JsonPayload payload)
+    {
+        String event = endpoints.eventType(topic);
+        enqueue(event, event, topic, false, payload);
+    }
+
+    /** Tilstandsovergang (Idle, Online …); prioriteres foran nivå‑verdier ved full kø. */
+    public void publishTransition(String topic, JsonPayload payload)
+    {
+        String event = endpoints.eventType(topic);
+        enqueue(event, event, topic, true, payload);
+    }
+
+    /** Sender {"enabled":on} for topic – egen kø‑plass så verdien ikke overskriver togglen. */
+    public void publishToggle(String topic, boolean on)
+    {
+        String event = endpoints.eventType(topic);
+        lastSent.remove(event);                  // verdien skal med igjen etter en toggle
+        enqueue(event + ":enabled", event, topic, true, payload().put("enabled", on));
+    }
+
+    /** Glemmer sist sendte verdier slik at neste publish går ut uansett (heartbeat). */
+    public void reassert()
+    {
+        lastSent.clear();
+    }
+
+    /** Avslutter gjeldende tick/heartbeat: samlede batch‑verdier sendes som ett event. */
+    public void flushBatch()
+    {
+        synchronized (pending)
+        {
+            if (batch.isEmpty())
+                return;
+            batchReady = true;
+            scheduleDrain();
+        }
+    }
+
+    /** Én linje med tellere for logg. */
+    public String stats()
+    {
+        int queued, running;
+        synchronized (pending)
+        {
+            queued  = pending.size();
+            running = inFlight;
+        }
+        String line = String.format("sent=%d failed=%d superseded=%d dropped=%d queued=%d inFlight=%d parked=%d replayed=%d breaker=%s trips=%d",
+                sent.get(), failed.get(), superseded.get(), dropped.get(), queued, running,
+                parked.get(), replayed.get(), breaker.state(), breaker.trips());
+        HaWsClient socket = ws;
+        if (socket == null)
+            return line;
+        return line + String.format(" ws=%s wsAcked=%d wsFailed=%d",
+                socket.isReady() ? "ready" : "down", socket.ackedCount(), socket.failedCount());
+    }
+
+    /**
+     * Sender det som ligger i kø og stopper sender‑tråden, men venter aldri
+     * forbi {@code deadlineNanos} (System.nanoTime; kalleren deler fristen med
+     * resten av avslutningen). Overganger som ikke rakk ut eller ikke er
+     * bekreftet (typisk «Offline») legges i utboksen til neste oppstart.
+     */
+    public void shutDown(long deadlineNanos)
+    {
+        flushBatch();
+        sender.shutdown();
+        try
+        {
+            long left = deadlineNanos - System.nanoTime();
+            if (left <= 0 || !sender.awaitTermination(left, TimeUnit.NANOSECONDS))
+                sender.shutdownNow();
+
+            synchronized (pending)
+            {
+                long wait;
+                while (inFlight > 0 && (wait = deadlineNanos - System.nanoTime()) > 0)
+                    TimeUnit.NANOSECONDS.timedWait(pending, wait);   // complete() vekker oss
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (outbox == null)
+            return;
+        synchronized (pending)
+        {
+            for (Pending p : pending.values())
+                if (p.transition)
+                    park(p.key, p.event, p.body);
+            pending.clear();
+            for (Map.Entry<String, Unconfirmed> e : unconfirmed.entrySet())
+                park(e.getKey(), e.getValue().event, e.getValue().body);   // svaret rakk ikke fram
+            unconfirmed.clear();
+        }
+        outbox.close();
+    }
+
+    /* ───────── kø ───────── */
+
+    private void enqueue(String key, String event, String topic, boolean transition, JsonPayload payload)
+    {
+        payload.end();
+        if (payload.contentEquals(lastSent.get(key)))
+            return;                              // uendret siden sist – ingen allokering
+
+        byte[] body = payload.toByteArray();
+        lastSent.put(key, body);
+        Pending p = new Pending(key, event, topic, endpoints.userId(), transition, body);
+
+        EventMode mode = config.eventMode();
+        int maxQueued = config.maxQueued();
+        OverflowPolicy policy = config.overflowPolicy();
+        synchronized (pending)
+        {
+            if (mode != EventMode.PER_SENSOR && batch.put(p.key, p) != null)
+                superseded.incrementAndGet();
+
+            if (mode != EventMode.BATCHED)
+            {
+                if (pending.remove(p.key) != null) // flytt bakerst: nyeste verdi vinner
+                    superseded.incrementAndGet();
+                pending.put(p.key, p);
+                while (pending.size() > maxQueued)
+                    drop(victim(policy));
+                scheduleDrain();
+            }
+        }
+    }
+
+    /* kalles med låsen på pending */
+    private Pending victim(OverflowPolicy policy)
+    {
+        Pending oldest = pending.values().iterator().next();
+        if (policy == OverflowPolicy.DROP_LOW_PRIORITY)
+        {
+            for (Pending p : pending.values())
+                if (!p.transition)
+                    return p;
+        }
+        return oldest;
+    }
+
+    /* kalles med låsen på pending */
+    private void drop(Pending p)
+    {
+        pending.remove(p.key);
+        lastSent.remove(p.key, p.body);          // sendes på nytt når den endres/heartbeat
+        if (p.transition)                        // overganger skal ikke forsvinne
+            onSender(() -> park(p.key, p.event, p.body));
+        if (dropped.incrementAndGet() % 100 == 1)
+            log.debug("HA‑kø full – kastet {} ({})", p.event, stats());
+    }
+
+    /* kalles med låsen på pending */
+    private void scheduleDrain()
+    {
+        if (drainScheduled || sender.isShutdown())
+            return;
+        drainScheduled = true;
+        sender.execute(this::drain);
+    }
+
+    private void drain()
+    {
+        while (true)
+        {
+            int maxInFlight = config.maxInFlight();
+            Pending next = null;
+            List<Pending> parts = null;
+            synchronized (pending)
+            {
+                if (inFlight >= maxInFlight || !breaker.allowRequest() || replaying)
+                {
+                    drainScheduled = false;      // complete()/recovered()/replayDone() starter oss igjen
+                    return;
+                }
+                if (batchReady)
+                {
+                    parts = new ArrayList<>(batch.values());
+                    batch.clear();
+                    batchReady = false;
+                }
+                else
+                {
+                    Iterator<Pending> it = pending.values().iterator();
+                    if (!it.hasNext())
+                    {
+                        drainScheduled = false;
+                        return;
+                    }
+                    next = it.next();
+                    it.remove();
+                }
+            }
+
+            if (parts != null)
+            {
+                for (Pending p : parts)
+                    supersede(p, batchKey(p));
+                sendBatch(parts);
+            }
+            else
+            {
+                Pending p = next;
+                supersede(p, p.key);
+                track(p, p.key, p.event, p.body);
+                send(p.event, p.body, ok -> delivered(p, p.key, p.event, p.body, ok));
+            }
+        }
+    }
+
+    /* ───────── batch ───────── */
+
+    /** Ett kp_runelite_state_{user} pr. bruker: {"health":{"current":..,"enabled":..},...}. */
+    private void sendBatch(List<Pending> parts)
+    {
+        /* bruker → topic → feltene (uten klammer) fra alle payloads for topic */
+        Map<String, Map<String, ByteArrayOutputStream>> byUser = new LinkedHashMap<>();
+        for (Pending p : parts)
+        {
+            ByteArrayOutputStream sub = byUser
+                    .computeIfAbsent(p.user, u -> new LinkedHashMap<>())
+                    .computeIfAbsent(p.topic, t -> new ByteArrayOutputStream());
+            if (p.body.length <= 2)
+                continue;                        // {}
+            if (sub.size() > 0)
+                sub.write(',');
+            sub.write(p.body, 1, p.body.length - 2);
+        }
+
+        for (Map.Entry<String, Map<String, ByteArrayOutputStream>> u : byUser.entrySet())
+        {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            json.write('{');
+            for (Map.Entry<String, ByteArrayOutputStream> t : u.getValue().entrySet())
+            {
+                if (json.size() > 1)
+                    json.write(',');
+                json.writeBytes(('"' + t.getKey() + "\":{").getBytes(StandardCharsets.UTF_8));
+                json.writeBytes(t.getValue().toByteArray());
+                json.write('}');
+            }
+            json.write('}');
+
+            String user  = u.getKey();
+            String event = HaEndpoints.eventType("state", user);
+            for (Pending p : parts)
+                if (p.user.equals(user))
+                    track(p, batchKey(p), event, p.transition ? wrap(p) : null);
+            send(event, json.toByteArray(), ok -> {
+                for (Pending p : parts)
+                    if (p.user.equals(user))
+                        delivered(p, batchKey(p), event, p.transition ? wrap(p) : null, ok);
+            });
+        }
+    }
+
+    /** {"topic":{..}} – én overgang som eget state‑event ved avspilling. */
+    private static byte[] wrap(Pending p)
+    {
+        ByteArrayOutputStream json = new ByteArrayOutputStream(p.topic.length() + p.body.length + 5);
+        json.writeBytes(("{\"" + p.topic + "\":").getBytes(StandardCharsets.UTF_8));
+        json.writeBytes(p.body);
+        json.write('}');
+        return json.toByteArray();
+    }
+
+    /* ───────── utboks ───────── */
+
+    /*
+     * En nyere overgang er på vei ut: eldre utboks‑poster for samme nøkkel
+     * skal ikke spilles av etter den (f.eks. «Offline» fra forrige økt foran
+     * ny «Online»). Kjøres på publisher‑tråden før send, ikke først ved svar.
+     * Per‑sensor‑ og batch‑formen har hver sin nøkkel ({@link #batchKey}).
+     */
+    private void supersede(Pending p, String key)
+    {
+        if (p.transition && outbox != null)
+            outbox.supersede(key);
+    }
+
+    /* utboks‑nøkkel for batch‑formen: egen post ved siden av per‑sensor‑formen (BOTH) */
+    private static String batchKey(Pending p)
+    {
+        return p.key + '\0' + HaEndpoints.eventType("state", p.user);
+    }
+
+    /**
+     * Etter svar fra HA. Levert overgang gjør eldre utboks‑poster for samme
+     * nøkkel (og form) foreldet; ikke levert overgang parkeres som (event, body).
+     */
+    private void delivered(Pending p, String key, String event, byte[] body, boolean ok)
+    {
+        if (p.transition)
+        {
+            synchronized (pending)
+            {
+                Unconfirmed u = unconfirmed.get(key);
+                if (u != null && u.pending == p)
+                    unconfirmed.remove(key);     // en nyere for samme nøkkel blir stående
+            }
+        }
+        if (ok)
+        {
+            if (p.transition && outbox != null)
+                outbox.supersede(key);
+            return;
+        }
+        lastSent.remove(p.key, p.body);          // prøv igjen ved neste publish
+        if (p.transition)
+            park(key, event, body);
+    }
+
+    /* overgang på vei ut: huskes til svaret kommer, så shutDown() kan parkere den */
+    private void track(Pending p, String key, String event, byte[] body)
+    {
+        if (!p.transition || outbox == null)
+            return;
+        synchronized (pending)
+        {
+            unconfirmed.put(key, new Unconfirmed(p, event, body));
+        }
+    }
+
+    private void park(String key, String event, byte[] body)
+    {
+        if (outbox == null)
+            return;
+        outbox.append(key, event, body);
+        parked.incrementAndGet();
+        synchronized (pending)
+        {
+            scheduleReplay(backoffMs);
+        }
+    }
+
+    /* kalles med låsen på pending */
+    private void scheduleReplay(long delayMs)
+    {
+        if (outbox == null || replayScheduled || sender.isShutdown())
+            return;
+        replayScheduled = true;
+        sender.schedule(this::replay, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Spiller av inntil «Max in-flight» koalescerte poster; resten i neste runde. */
+    private void replay()
+    {
+        if (!breaker.allowRequest())
+        {
+            synchronized (pending)
+            {
+                replayScheduled = false;         // recovered() starter avspillingen
+            }
+            return;
+        }
+
+        List<HaOutbox.Entry> due = outbox.live();
+        int n = Math.min(due.size(), config.maxInFlight());
+        if (n == 0)
+        {
+            replayDone(true);
+            return;
+        }
+
+        synchronized (pending)
+        {
+            replaying = true;
+        }
+        AtomicInteger left = new AtomicInteger(n);
+        AtomicBoolean allOk = new AtomicBoolean(true);
+        for (int i = 0; i < n; i++)
+        {
+            HaOutbox.Entry e = due.get(i);
+            send(e.event, e.body, ok -> {
+                if (ok)
+                {
+                    outbox.markDone(e);
+                    replayed.incrementAndGet();
+                }
+                else
+                {
+                    allOk.set(false);
+                }
+                if (left.decrementAndGet() == 0)
+                    replayDone(allOk.get());
+            });
+        }
+    }
+
+    private void replayDone(boolean ok)
+    {
+        synchronized (pending)
+        {
+            replayScheduled = false;
+            replaying       = false;
+            if (!pending.isEmpty() || batchReady)
+                scheduleDrain();
+            if (ok)
+            {
+                backoffMs = BACKOFF_MIN_MS;
+                if (!outbox.isEmpty())
+                    scheduleReplay(0);
+                return;
+            }
+            long delay = backoffMs;
+            backoffMs  = Math.min(backoffMs * 2, BACKOFF_MAX_MS);
+            log.debug("HA utilgjengelig – ny avspilling av utboks om {} ms", delay);
+            scheduleReplay(delay);
+        }
+    }
+
+    /* ───────── bryter ───────── */
+
+    private void scheduleProbe()
+    {
+        if (!sender.isShutdown())
+            sender.schedule(this::probe, breaker.nextProbeDelay(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Ett lett GET /api/ mens bryteren er åpen. */
+    private void probe()
+    {
+        breaker.probing();
+        HttpUrl url = endpoints.apiUrl();
+        if (url == null)
+        {
+            probeFailed();
+            return;
+        }
+
+        Request req;
+        try
+        {
+            req = new Request.Builder()
+                    .url(url)
+                    .addHeader("Authorization", endpoints.authorization())
+                    .get()
+                    .build();
+        }
+        catch (IllegalArgumentException ex)      // ugyldig token‑header
+        {
+            probeFailed();
+            return;
+        }
+
+        http.newCall(req).enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call c, IOException e)
+            {
+                onSender(HaPublisher.this::probeFailed);
+            }
+
+            @Override
+            public void onResponse(Call c, Response r)
+            {
+                try (r)
+                {
+                    onSender(r.isSuccessful() ? HaPublisher.this::recovered : HaPublisher.this::probeFailed);
+                }
+            }
+        });
+    }
+
+    private void probeFailed()
+    {
+        breaker.probeFailed();
+        scheduleProbe();
+    }
+
+    /* HA svarer: send alt som venter, spill av utboksen og be om full resync */
+    private void recovered()
+    {
+        breaker.probeSucceeded();
+        Runnable r = onRecovered;
+        if (r != null)
+            r.run();
+        synchronized (pending)
+        {
+            backoffMs = BACKOFF_MIN_MS;
+            scheduleDrain();
+            scheduleReplay(0);
+        }
+    }
+
+    /* ───────── levering ───────── */
+
+    /**
+     * Leverer asynkront via WS når mulig, ellers REST. Teller som in‑flight til
+     * HA har svart; {@code onDone} får vite om HA tok imot.
+     */
+    private void send(String event, byte[] body, Consumer<Boolean> onDone)
+    {
+        synchronized (pending)
+        {
+            inFlight++;
+        }
+
+        HaWsClient socket = ws;
+        if (socket != null && config.publishOverWebSocket()
+                && socket.fireEvent(event, new String(body, StandardCharsets.UTF_8),
+                        ok -> completeLater(ok, onDone)))
+            return;
+
+        post(event, body, onDone);
+    }
+
+    private void post(String event, byte[] body, Consumer<Boolean> onDone)
+    {
+        HttpUrl url = endpoints.eventUrl(event);
+        if (url == null)
+        {
+            complete(false, onDone);             // haUrl mangler/ugyldig
+            return;
+        }
+
+        Request req;
+        try
+        {
+            req = new Request.Builder()
+                    .url(url)
+                    .addHeader("Authorization", endpoints.authorization())
+                    .post(RequestBody.create(JSON, body))
+                    .build();
+        }
+        catch (IllegalArgumentException ex)      // ugyldig token‑header
+        {
+            log.debug("Kunne ikke sende {}: {}", event, ex.getMessage());
+            complete(false, onDone);
+            return;
+        }
+
+        http.newCall(req).enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call c, IOException e)
+            {
+                log.debug("Kunne ikke sende {}: {}", event, e.getMessage());
+                completeLater(false, onDone);
+            }
+
+            @Override
+            public void onResponse(Call c, Response r)
+            {
+                try (r)
+                {
+                    if (!r.isSuccessful())
+                        log.debug("HA svarte {} på {}", r.code(), event);
+                    completeLater(r.isSuccessful(), onDone);
+                }
+            }
+        });
+    }
+
+    private void completeLater(boolean ok, Consumer<Boolean> onDone)
+    {
+        onSender(() -> complete(ok, onDone));
+    }
+
+    /*
+     * Svar (levering og probe) kommer på OkHttp/WS‑tråder og kastede overganger
+     * på sensortråden; selve bokføringen (bryter, utboks, lastSent) flyttes til
+     * publisher‑tråden så den har én eier. Etter shutDown() kjøres den direkte.
+     */
+    private void onSender(Runnable task)
+    {
+        try
+        {
+            sender.execute(task);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            task.run();
+        }
+    }
+
+    /* svar fra HA (eller feil): frigjør plass og tøm videre */
+    private void complete(boolean ok, Consumer<Boolean> onDone)
+    {
+        (ok ? sent : failed).incrementAndGet();
+        if (ok)
+            breaker.onSuccess();
+        else if (breaker.onFailure(config.breakerThreshold()))
+            scheduleProbe();
+        onDone.accept(ok);
+        synchronized (pending)
+        {
+            inFlight--;
+            pending.notifyAll();                 // shutDown() venter på siste svar
+            if (!pending.isEmpty() || batchReady)
+                scheduleDrain();
+        }
+    }
+
+    private static final class Unconfirmed
+    {
+        final Pending pending;
+        final String  event;
+        final byte[]  body;
+
+        Unconfirmed(Pending pending, String event, byte[] body)
+        {
+            this.pending = pending;
+            this.event   = event;
+            this.body    = body;
+        }
+    }
+
+    private static final class Pending
+    {
+        final String  key;
+        final String  event;
+        final String  topic;
+        final String  user;
+        final boolean transition;
+        final byte[]  body;
+
+        Pending(String key, String event, String topic, String user, boolean transition, byte[] body)
+        {
+            this.key        = key;
+            this.event      = event;
+            this.topic      = topic;
+            this.user       = user;
+            this.transition = transition;
+            this.body       = body;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.krisped;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.WebSocket;
+
+/**
+ * Abonnementer på HA‑WebSocket (subscribe_events / subscribe_trigger /
+ * subscribe_entities) og ruting av innkommende event til riktig handler.
+ * <p>
+ * Eier meldings‑id‑ene for socketen. Hvert abonnement får ny id ved hver
+ * tilkobling; id → abonnement ligger i en åpen‑adresse‑tabell (int‑nøkler,
+ * ingen boksing) som byttes ut i sin helhet ved endring, så oppslag på
+ * lesetråden er O(1) uten lås.
+ * <p>
+ * {@link EventReader} kjøres på lesetråden og plukker kun ut det handleren
+ * trenger; selve handleren kjøres på en egen tråd med begrenset kø, så en
+ * treg handler aldri holder igjen socketen. Full kø = eventet forkastes.
+ */
+@Slf4j
+public class HaSubscriptions
+{
+    private static final int HANDLER_QUEUE = 256;
+
+    /** Leser «event»‑verdien til et ferdig objekt for handleren (strømmende, hopp over resten). */
+    public interface EventReader<T>
+    {
+        T read(JsonReader in) throws IOException;
+    }
+
+    public static final class Subscription<T>
+    {
+        private final JsonObject     request;    // uten id
+        private final EventReader<T> reader;
+        private final Consumer<T>    handler;
+        private volatile int id = -1;            // -1 = ikke sendt på gjeldende socket
+        private Runnable onDetach;               // socketen falt – lokal tilstand er utdatert
+
+        private Subscription(JsonObject request, EventReader<T> reader, Consumer<T> handler)
+        {
+            this.request = request;
+            this.reader  = reader;
+            this.handler = handler;
+        }
+
+        T read(JsonReader in) throws IOException
+        {
+            return reader.read(in);
+        }
+
+        public String type()
+        {
+            return request.get("type").getAsString();
+        }
+
+        /** Kjøres (lesetråden) når socketen faller, før abonnementet sendes på nytt. */
+        Subscription<T> onDetach(Runnable onDetach)
+        {
+            this.onDetach = onDetach;
+            return this;
+        }
+    }
+
+    /* ───────── fabrikker ───────── */
+
+    public static <T> Subscription<T> events(String eventType, EventReader<T> reader, Consumer<T> handler)
+    {
+        JsonObject req = new JsonObject();
+        req.addProperty("type", "subscribe_events");
+        req.addProperty("event_type", eventType);
+        return new Subscription<>(req, reader, handler);
+    }
+
+    public static <T> Subscription<T> trigger(JsonObject trigger, EventReader<T> reader, Consumer<T> handler)
+    {
+        JsonObject req = new JsonObject();
+        req.addProperty("type", "subscribe_trigger");
+        req.add("trigger", trigger);
+        return new Subscription<>(req, reader, handler);
+    }
+
+    public static <T> Subscription<T> entities(List<String> entityIds, EventReader<T> reader, Consumer<T> handler)
+    {
+        JsonObject req = new JsonObject();
+        req.addProperty("type", "subscribe_entities");
+        JsonArray ids = new JsonArray();
+        entityIds.forEach(ids::add);
+        req.add("entity_ids", ids);
+        return new Subscription<>(req, reader, handler);
+    }
+
+    /* ───────── tilstand ───────── */
+
+    private final Gson gson = new Gson();
+    private final List<Subscription<?>> all = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private volatile IdTable byId = new IdTable(0);
+    private WebSocket live;                      // autentisert socket, null mellom tilkoblinger
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final ThreadPoolExecutor handlers = new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(HANDLER_QUEUE),
+            r -> {
+                Thread t = new Thread(r, "kp-ha-ws-handlers");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /** Neste meldings‑id på gjeldende socket (også for fire_event o.l.). */
+    public int nextId()
+    {
+        return nextId.getAndIncrement();
+    }
+
+    /** Ny socket etter auth: id‑ene starter på nytt. */
+    synchronized void resetIds()
+    {
+        nextId.set(1);
+        for (Subscription<?> s : all)
+            s.id = -1;
+        byId = new IdTable(0);
+    }
+
+    /** Registrerer {@code sub}; sendes straks når socketen er klar, ellers ved neste auth. */
+    public synchronized void add(Subscription<?> sub)
+    {
+        all.add(sub);
+        if (live != null)
+            send(sub, live);
+        rebuild();
+    }
+
+    /** Avslutter {@code sub}; HA får unsubscribe_events når den er aktiv. */
+    public synchronized void remove(Subscription<?> sub)
+    {
+        all.remove(sub);
+        if (live != null && sub.id >= 0)
+        {
+            JsonObject req = new JsonObject();
+            req.addProperty("id", nextId());
+            req.addProperty("type", "unsubscribe_events");
+            req.addProperty("subscription", sub.id);
+            live.send(gson.toJson(req));
+        }
+        sub.id = -1;
+        rebuild();
+    }
+
+    /** Sender alle abonnement på nytt med ferske id‑er (etter auth_ok). */
+    synchronized void subscribeAll(WebSocket ws)
+    {
+        live = ws;
+        for (Subscription<?> s : all)
+            send(s, ws);
+        rebuild();
+    }
+
+    /** Socketen er borte – nye abonnement venter til neste auth. */
+    synchronized void detach()
+    {
+        live = null;
+        for (Subscription<?> s : all)
+            if (s.onDetach != null)
+                s.onDetach.run();
+    }
+
+    /** Abonnementet med meldings‑id {@code id}, eller null. Lesetråden, O(1). */
+    Subscription<?> lookup(int id)
+    {
+        return byId.get(id);
+    }
+
+    /** Gir {@code payload} til handleren på handler‑tråden. */
+    @SuppressWarnings("unchecked")
+    <T> void dispatch(Subscription<T> sub, Object payload)
+    {
+        try
+        {
+            handlers.execute(() -> {
+                try
+                {
+                    sub.handler.accept((T) payload);
+                }
+                catch (RuntimeException ex)
+                {
+                    log.warn("HA WS handler feilet ({})", sub.type(), ex);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex)
+        {
+            if (dropped.incrementAndGet() % 100 == 1)
+                log.debug("HA WS handler‑kø full – event forkastet ({} totalt)", dropped.get());
+        }
+    }
+
+    /** result for et abonnement; false når id‑en ikke er et abonnement. */
+    boolean onResult(int id, boolean ok, String message)
+    {
+        Subscription<?> sub = lookup(id);
+        if (sub == null)
+            return false;
+        if (!ok)
+            log.warn("HA WS {} avvist: {}", sub.type(), message);
+        return true;
+    }
+
+    public long droppedCount()
+    {
+        return dropped.get();
+    }
+
+    void shutdown()
+    {
+        handlers.shutdownNow();
+    }
+
+    /* ───────── intern ───────── */
+
+    private void send(Subscription<?> sub, WebSocket ws)
+    {
+        JsonObject req = sub.request.deepCopy();
+        sub.id = nextId();
+        req.addProperty("id", sub.id);
+        ws.send(gson.toJson(req));
+        log.debug("HA WS {} id={}", sub.type(), sub.id);
+    }
+
+    private void rebuild()
+    {
+        IdTable t = new IdTable(all.size());
+        for (Subscription<?> s : all)
+            if (s.id >= 0)
+                t.put(s.id, s);
+        byId = t;
+    }
+
+    /* int → abonnement, lineær probing; bygges ferdig før den publiseres */
+    private static final class IdTable
+    {
+        private final int[] keys;
+        private final Subscription<?>[] vals;
+        private final int mask;
+
+        IdTable(int expected)
+        {
+            int size = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            keys = new int[size];
+            vals = new Subscription<?>[size];
+            mask = size - 1;
+        }
+
+        void put(int key, Subscription<?> val)
+        {
+            int i = mix(key) & mask;
+            while (vals[i] != null && keys[i] != key)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            vals[i] = val;
+        }
+
+        Subscription<?> get(int key)
+        {
+            for (int i = mix(key) & mask; vals[i] != null; i = (i + 1) & mask)
+                if (keys[i] == key)
+                    return vals[i];
+            return null;
+        }
+
+        private static int mix(int k)
+        {
+            return k * 0x9E3779B9;
+        }
+    }
+}
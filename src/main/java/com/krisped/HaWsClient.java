@@ -1,68 +1,276 @@
 package com.krisped;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
 /**
- * Lytter på HA‑WebSocket og oppdaterer overlay‑state.
+ * Lytter på HA‑WebSocket og ruter event til abonnementene i {@link HaSubscriptions}.
+ * Kan også sende fire_event på samme socket (se {@link #fireEvent}).
+ * <p>
+ * Selvhelende: brudd (HA‑restart, nett, uteblitt pong) gir ny tilkobling med
+ * eksponentiell backoff og jitter; etter auth abonneres alt på nytt og
+ * {@link #setOnReconnected} kalles så pluginen kan sende full tilstand.
+ * <p>
+ * Ber om coalesce_messages etter auth: HA kan da samle flere meldinger i én
+ * array‑ramme, som pakkes ut element for element i {@link #onMessage}.
  */
 @Slf4j
 public class HaWsClient extends WebSocketListener
 {
-    private final String wsUrl;
-    private final String token;
-    private final HomeAssistantPlugin plugin;
-    private WebSocket ws;
+    private static final long PING_SECONDS   = 30;
+    private static final long BACKOFF_MIN_MS = 1_000;
+    private static final long BACKOFF_MAX_MS = 60_000;
+
+    private final OkHttpClient http;             // delt dispatcher/pool med REST, + ping
+    private final ScheduledExecutorService scheduler;
+    private volatile String wsUrl;               // byttes av reconfigure
+    private volatile String token;
+    private volatile WebSocket ws;               // gjeldende socket; callbacks fra gamle ignoreres
     private final Gson gson = new Gson();
+    private final HaSubscriptions subs = new HaSubscriptions();
+    private final HaWsMessage frame = new HaWsMessage(subs);   // kun lesetråden til socketen
+
+    /* gjenoppkobling */
+    private volatile boolean closed;
+    private volatile boolean everConnected;
+    private long backoffMs = BACKOFF_MIN_MS;     // kun under synchronized (this)
+    private volatile Runnable onReconnected;
+
+    /* utgående fire_event: id → callback for result */
+    private volatile boolean authenticated;
+    private final Map<Integer, Consumer<Boolean>> awaiting = new ConcurrentHashMap<>();
+    private final AtomicLong acked  = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public HaWsClient(OkHttpClient http, ScheduledExecutorService scheduler, String wsUrl, String token)
+    {
+        /* newBuilder deler dispatcher og pool – én gang her, ikke pr. tilkobling */
+        this.http      = http.newBuilder().pingInterval(PING_SECONDS, TimeUnit.SECONDS).build();
+        this.scheduler = scheduler;
+        this.wsUrl     = wsUrl;
+        this.token     = token;
+    }
+
+    /**
+     * Legger til et abonnement (se fabrikkene i {@link HaSubscriptions}).
+     * Sendes straks hvis socketen er klar, og på nytt etter hver gjenoppkobling.
+     */
+    public void subscribe(HaSubscriptions.Subscription<?> sub)
+    {
+        subs.add(sub);
+    }
 
-    public HaWsClient(String wsUrl, String token, HomeAssistantPlugin plugin)
+    public void unsubscribe(HaSubscriptions.Subscription<?> sub)
     {
-        this.wsUrl  = wsUrl;
-        this.token  = token;
-        this.plugin = plugin;
+        subs.remove(sub);
     }
 
+    /** Kjøres etter hver vellykket gjenoppkobling (ikke første tilkobling). */
+    public void setOnReconnected(Runnable onReconnected)
+    {
+        this.onReconnected = onReconnected;
+    }
+
+    /**
+     * Kobler til, med mindre klienten er stengt eller allerede har en socket.
+     * Ugyldig adresse (f.eks. tom haUrl) logges; klienten står frakoblet til
+     * {@link #reconfigure}.
+     */
     public void connect()
     {
-        OkHttpClient client = new OkHttpClient();
-        Request req = new Request.Builder().url(wsUrl).build();
-        client.newWebSocket(req, this);
+        synchronized (this)
+        {
+            if (closed || ws != null)            // stengt, eller en eldre planlagt gjenoppkobling
+                return;
+            HttpUrl url = HttpUrl.parse(wsUrl.replaceFirst("^ws", "http"));
+            if (url == null)
+            {
+                log.warn("HA WS: ugyldig haUrl ({}) – venter på ny innstilling", wsUrl);
+                return;                          // reconfigure() prøver igjen
+            }
+            Request req = new Request.Builder().url(url).build();
+            ws = http.newWebSocket(req, this);   // callbacks venter på låsen, så ws er satt før de sjekker
+        }
     }
 
+    /**
+     * Ny HA‑adresse eller token: lukker gjeldende socket og kobler til på nytt,
+     * også etter auth_invalid.
+     */
+    public void reconfigure(String wsUrl, String token)
+    {
+        WebSocket old;
+        synchronized (this)
+        {
+            this.wsUrl = wsUrl;
+            this.token = token;
+            closed     = false;
+            backoffMs  = BACKOFF_MIN_MS;
+            old        = ws;
+            ws         = null;                   // callbacks fra den gamle ignoreres herfra
+        }
+        if (old != null)
+        {
+            old.close(1000, "reconfigured");
+            connectionLost(old);
+        }
+        connect();
+    }
+
+    private synchronized boolean isCurrent(WebSocket webSocket)
+    {
+        return webSocket == ws;
+    }
+
+    /** Lukker socketen pent (plugin stopper) – ingen gjenoppkobling etter dette. */
+    public void close()
+    {
+        synchronized (this)
+        {
+            closed = true;                       // connect() sjekker under samme lås
+            if (ws != null)
+                ws.close(1000, "plugin stopped");
+            ws = null;
+        }
+        subs.shutdown();
+    }
+
+    /** True når socketen er åpen og autentisert. */
+    public boolean isReady()
+    {
+        return authenticated;
+    }
+
+    /**
+     * Sender {@code eventData} (ferdig JSON‑objekt) som fire_event.
+     * Returnerer false hvis socketen ikke er klar – kaller må da bruke REST.
+     * Ellers får {@code onResult} nøyaktig én gang true/false (svar fra HA,
+     * eller false når socketen faller).
+     */
+    public boolean fireEvent(String eventType, String eventData, Consumer<Boolean> onResult)
+    {
+        WebSocket socket = ws;
+        if (!authenticated || socket == null)
+            return false;
+
+        int id = subs.nextId();
+        String msg = "{\"id\":" + id
+                + ",\"type\":\"fire_event\",\"event_type\":\"" + eventType
+                + "\",\"event_data\":" + eventData + "}";
+
+        awaiting.put(id, onResult);
+        if (!socket.send(msg))
+        {
+            /* connectionLost() kan ha tatt callbacken og meldt false allerede – da er den håndtert */
+            return awaiting.remove(id) == null;
+        }
+        return true;
+    }
+
+    public long ackedCount()  { return acked.get(); }
+    public long failedCount() { return failed.get(); }
+
     /* ───────── WebSocketListener ───────── */
 
     @Override
     public void onOpen(WebSocket webSocket, Response response)
     {
-        ws = webSocket;
+        if (!isCurrent(webSocket)) return;
         JsonObject auth = new JsonObject();
         auth.addProperty("type", "auth");
         auth.addProperty("access_token", token);
-        ws.send(gson.toJson(auth));
+        webSocket.send(gson.toJson(auth));
         log.info("HA WS connected – auth sent");
     }
 
     @Override
     public void onMessage(WebSocket webSocket, String text)
     {
-        JsonObject msg  = JsonParser.parseString(text).getAsJsonObject();
-        String      typ = msg.get("type").getAsString();
+        if (!isCurrent(webSocket)) return;
+        try (JsonReader in = new JsonReader(new StringReader(text)))
+        {
+            if (in.peek() == JsonToken.BEGIN_ARRAY)      // coalesce_messages
+            {
+                in.beginArray();
+                while (in.hasNext())
+                    handle(webSocket, frame.read(in));
+                in.endArray();
+            }
+            else
+            {
+                handle(webSocket, frame.read(in));
+            }
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            log.debug("HA WS ugyldig ramme: {}", ex.toString());
+        }
+    }
+
+    private void handle(WebSocket webSocket, HaWsMessage msg)
+    {
+        String typ = msg.type;
 
         if ("auth_ok".equals(typ))
         {
-            JsonObject sub = new JsonObject();
-            sub.addProperty("id", 1);
-            sub.addProperty("type", "subscribe_events");
-            sub.addProperty("event_type", "kp_runelite_button_check");
-            ws.send(gson.toJson(sub));
-            log.info("Subscribed to kp_runelite_button_check");
+            subs.resetIds();
+            JsonObject features = new JsonObject();
+            features.addProperty("coalesce_messages", 1);
+            JsonObject hello = new JsonObject();
+            hello.addProperty("id", subs.nextId());
+            hello.addProperty("type", "supported_features");
+            hello.add("features", features);
+            webSocket.send(gson.toJson(hello));      // svaret (result) har ingen mottaker
+
+            subs.subscribeAll(webSocket);
+            authenticated = true;
+            synchronized (this)
+            {
+                backoffMs = BACKOFF_MIN_MS;
+            }
+
+            Runnable cb = onReconnected;
+            if (everConnected && cb != null)
+                cb.run();                        // HA kan ha mistet alt – send full tilstand
+            everConnected = true;
         }
         else if ("event".equals(typ))
         {
-            JsonObject data = msg.getAsJsonObject("event").getAsJsonObject("data");
-            boolean on = "ON".equalsIgnoreCase(data.get("state").getAsString());
-            plugin.setHaButtonState(on);
+            if (msg.sub != null)
+                subs.dispatch(msg.sub, msg.payload);     // handler‑tråden, ikke lesetråden
+        }
+        else if ("result".equals(typ) && msg.id >= 0)
+        {
+            Consumer<Boolean> cb = awaiting.remove(msg.id);
+            if (cb == null)
+            {
+                subs.onResult(msg.id, msg.success, msg.message);
+                return;
+            }
+            boolean ok = msg.success;
+            (ok ? acked : failed).incrementAndGet();
+            if (!ok)
+                log.debug("HA WS fire_event avvist: {}", msg.message);
+            cb.accept(ok);
+        }
+        else if ("auth_invalid".equals(typ))
+        {
+            log.warn("HA WS auth feilet: {} – prøver ikke igjen", msg.message);
+            closed = true;                       // samme token vil feile igjen
+            webSocket.close(1000, null);
         }
     }
 
@@ -77,11 +285,63 @@ public class HaWsClient extends WebSocketListener
     public void onClosed(WebSocket webSocket, int code, String reason)
     {
         log.info("HA WS closed: {} / {}", code, reason);
+        if (!isCurrent(webSocket)) return;
+        connectionLost(webSocket);
+        scheduleReconnect();
     }
 
     @Override
     public void onFailure(WebSocket webSocket, Throwable t, Response response)
     {
-        log.error("HA WS failure", t);
+        if (!isCurrent(webSocket)) return;
+        if (closed)
+            log.debug("HA WS failure etter stopp", t);
+        else
+            log.warn("HA WS failure: {}", t.toString());
+        connectionLost(webSocket);
+        scheduleReconnect();
+    }
+
+    /* full jitter: tilfeldig i [backoff/2, backoff], deretter dobling opp til maks */
+    private void scheduleReconnect()
+    {
+        if (closed)
+            return;
+        long delay;
+        synchronized (this)
+        {
+            delay     = ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1);
+            backoffMs = Math.min(backoffMs * 2, BACKOFF_MAX_MS);
+        }
+        log.info("HA WS kobler til igjen om {} ms", delay);
+        try
+        {
+            scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            log.debug("HA WS gjenoppkobling avvist – scheduler stengt");
+        }
+    }
+
+    /* ventende fire_event får aldri svar – meld dem som feilet */
+    private void connectionLost(WebSocket lost)
+    {
+        synchronized (this)
+        {
+            if (ws == lost)
+                ws = null;                       // åpner for neste connect()
+        }
+        authenticated = false;
+        subs.detach();
+        for (Integer id : awaiting.keySet())
+        {
+            Consumer<Boolean> cb = awaiting.remove(id);
+            if (cb != null)
+            {
+                failed.incrementAndGet();
+                cb.accept(false);
+            }
+        }
     }
 }
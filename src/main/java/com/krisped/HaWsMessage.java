@@ -0,0 +1,166 @@
+package com.krisped;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Strømmende lesing av én HA‑WebSocket‑ramme. Leser kun det {@link HaWsClient}
+ * bruker – type, id, success, event.event_type, event.data.state og
+ * feilmeldinger – og hopper over resten uten å bygge JsonObject‑tre.
+ * Feltrekkefølgen i rammen spiller ingen rolle.
+ * <p>
+ * Når id‑en tilhører et abonnement i {@link HaSubscriptions} leses «event»
+ * av abonnementets egen {@link HaSubscriptions.EventReader} til {@link #payload}
+ * (HA sender id før event).
+ * <p>
+ * Gjenbrukes av lesetråden til socketen; ikke trådsikker.
+ */
+final class HaWsMessage
+{
+    private final HaSubscriptions subs;         // null = kun standardfeltene
+
+    String  type;
+    int     id;                 // -1 = mangler
+    boolean success;
+    String  eventType;          // event.event_type
+    String  state;              // event.data.state
+    String  message;            // message (auth_invalid) eller error.message (result)
+    HaSubscriptions.Subscription<?> sub;        // abonnementet eventet hører til
+    Object  payload;            // sub sin lesing av «event»
+
+    HaWsMessage()
+    {
+        this(null);
+    }
+
+    HaWsMessage(HaSubscriptions subs)
+    {
+        this.subs = subs;
+    }
+
+    /** Fyller feltene fra {@code text}; kaster IOException/IllegalStateException ved ugyldig JSON. */
+    HaWsMessage parse(String text) throws IOException
+    {
+        try (JsonReader in = new JsonReader(new StringReader(text)))
+        {
+            return read(in);
+        }
+    }
+
+    /** Leser neste meldingsobjekt fra {@code in} (også ett element i en samlet array‑ramme). */
+    HaWsMessage read(JsonReader in) throws IOException
+    {
+        type = eventType = state = message = null;
+        id = -1;
+        success = false;
+        sub = null;
+        payload = null;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "type":    type = string(in); break;
+                case "id":      id = in.nextInt(); break;
+                case "success": success = in.nextBoolean(); break;
+                case "message": message = string(in); break;
+                case "error":   readError(in); break;
+                case "event":   readEvent(in); break;
+                default:        in.skipValue();
+            }
+        }
+        in.endObject();
+        return this;
+    }
+
+    /** {@link HaSubscriptions.EventReader} for events der kun data.state trengs. */
+    static String eventState(JsonReader in) throws IOException
+    {
+        HaWsMessage m = new HaWsMessage();
+        m.readPlainEvent(in);
+        return m.state;
+    }
+
+    /* ───────── intern ───────── */
+
+    private void readEvent(JsonReader in) throws IOException
+    {
+        HaSubscriptions.Subscription<?> s = subs != null && id >= 0 ? subs.lookup(id) : null;
+        if (s == null)
+        {
+            readPlainEvent(in);
+            return;
+        }
+        sub     = s;
+        payload = s.read(in);
+    }
+
+    private void readPlainEvent(JsonReader in) throws IOException
+    {
+        if (in.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            in.skipValue();
+            return;
+        }
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "event_type": eventType = string(in); break;
+                case "data":       readData(in); break;
+                default:           in.skipValue();      // origin, time_fired, context …
+            }
+        }
+        in.endObject();
+    }
+
+    private void readData(JsonReader in) throws IOException
+    {
+        if (in.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            in.skipValue();
+            return;
+        }
+        in.beginObject();
+        while (in.hasNext())
+        {
+            if ("state".equals(in.nextName()) && in.peek() == JsonToken.STRING)
+                state = in.nextString();
+            else
+                in.skipValue();                      // old_state/new_state‑trær o.l.
+        }
+        in.endObject();
+    }
+
+    private void readError(JsonReader in) throws IOException
+    {
+        if (in.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            in.skipValue();
+            return;
+        }
+        in.beginObject();
+        while (in.hasNext())
+        {
+            if ("message".equals(in.nextName()))
+                message = string(in);
+            else
+                in.skipValue();
+        }
+        in.endObject();
+    }
+
+    private static String string(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
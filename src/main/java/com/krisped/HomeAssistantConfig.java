@@ -35,6 +35,15 @@ public interface HomeAssistantConfig extends Config
 	)
 	default String haToken() { return ""; }
 
+	@ConfigItem(
+			keyName     = "mirroredEntities",
+			name        = "Mirrored entities",
+			description = "Comma-separated HA entity ids kept up to date locally, e.g. light.office, alarm_control_panel.home",
+			position    = 3,
+			section     = sectionApi
+	)
+	default String mirroredEntities() { return ""; }
+
 
 	/* ───────────────────────────── Status-toggles ───────────────────────────── */
 	@ConfigSection(
@@ -136,6 +145,25 @@ public interface HomeAssistantConfig extends Config
 	@Range(min = 1, max = 60)
 	default int idleThresholdSeconds() { return 5; }
 
+	@ConfigItem(
+			keyName     = "showNearestPoi",
+			name        = "Show Nearest POI",
+			description = "Enable sending the nearest bank/altar/teleport/fairy ring and the tile distance to it",
+			position    = 21,
+			section     = sectionStatus
+	)
+	default boolean showNearestPoi() { return false; }
+
+	@ConfigItem(
+			keyName     = "poiRadius",
+			name        = "POI radius (tiles)",
+			description = "Distance within which the nearest POI counts as nearby",
+			position    = 22,
+			section     = sectionStatus
+	)
+	@Range(min = 1, max = 100)
+	default int poiRadius() { return 10; }
+
 
 	/* ───────────────────────────── Keybinding ─────────────────────────────── */
 	@ConfigSection(
@@ -170,4 +198,81 @@ public interface HomeAssistantConfig extends Config
 	{
 		return 8124;
 	}
+
+
+	/* ───────────────────────────── Publishing ─────────────────────────────── */
+	@ConfigSection(
+			name             = "Publishing",
+			description      = "How updates are delivered to Home Assistant",
+			position         = 40,
+			closedByDefault  = true
+	)
+	String sectionPublishing = "publishing";
+
+	@ConfigItem(
+			keyName     = "eventMode",
+			name        = "Event mode",
+			description = "Per sensor: kp_runelite_<sensor>_<user> events. Batched: one kp_runelite_state_<user> event per tick. Both: send both",
+			position    = 41,
+			section     = sectionPublishing
+	)
+	default EventMode eventMode() { return EventMode.PER_SENSOR; }
+
+	@ConfigItem(
+			keyName     = "publishOverWebSocket",
+			name        = "Send over WebSocket",
+			description = "Send updates as fire_event on the open HA WebSocket, falling back to REST when it is down",
+			position    = 42,
+			section     = sectionPublishing
+	)
+	default boolean publishOverWebSocket() { return false; }
+
+	@ConfigItem(
+			keyName     = "maxInFlight",
+			name        = "Max in-flight requests",
+			description = "How many requests may be waiting on Home Assistant at once",
+			position    = 43,
+			section     = sectionPublishing
+	)
+	@Range(min = 1, max = 32)
+	default int maxInFlight() { return 4; }
+
+	@ConfigItem(
+			keyName     = "maxQueued",
+			name        = "Max queued updates",
+			description = "Pending updates kept while Home Assistant is slow (newest value per sensor)",
+			position    = 44,
+			section     = sectionPublishing
+	)
+	@Range(min = 8, max = 1024)
+	default int maxQueued() { return 64; }
+
+	@ConfigItem(
+			keyName     = "overflowPolicy",
+			name        = "Overflow policy",
+			description = "What to drop when the queue is full: the oldest update, or level sensors (energy, special …) before state transitions",
+			position    = 45,
+			section     = sectionPublishing
+	)
+	default OverflowPolicy overflowPolicy() { return OverflowPolicy.DROP_LOW_PRIORITY; }
+
+	@ConfigItem(
+			keyName     = "outboxSizeKb",
+			name        = "Outbox size (KB)",
+			description = "Disk space for state changes (Idle, Offline …) that could not be delivered and are retried later. Applies on restart",
+			position    = 46,
+			section     = sectionPublishing
+	)
+	@Range(min = 16, max = 4096)
+	default int outboxSizeKb() { return 256; }
+
+	@ConfigItem(
+			keyName     = "breakerThreshold",
+			name        = "Failures before pause",
+			description = "Consecutive failed requests before sending pauses and Home Assistant is probed until it answers again",
+			position    = 47,
+			section     = sectionPublishing
+	)
+	@Range(min = 1, max = 100)
+	default int breakerThreshold() { return 5; }
 }
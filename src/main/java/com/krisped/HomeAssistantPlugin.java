@@ -3,16 +3,20 @@ package com.krisped;
 import com.google.inject.Provides;
 import com.krisped.status.*;
 import com.sun.net.httpserver.HttpServer;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.*;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
-import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
@@ -27,48 +31,43 @@ import okhttp3.*;
 @PluginDescriptor(name = "KP Home Assistant", enabledByDefault = true)
 public class HomeAssistantPlugin extends Plugin
 {
-	/* ───────── constants ───────── */
-	private static final MediaType JSON =
-			MediaType.get("application/json; charset=utf-8");
-	private static final Pattern SANITIZE =
-			Pattern.compile("[^a-z0-9]");
+	/* shutDown kjører på EDT: én samlet frist for alt som venter der */
+	private static final long SHUTDOWN_BUDGET_MS = 1_000;
 
 	/* ───────── injected ───────── */
 	@Inject private Client                    client;
 	@Inject private HomeAssistantConfig       config;
+	@Inject private ClientThread              clientThread;
 	@Inject private ScheduledExecutorService  executor;
-	@Inject private EventBus                  eventBus;
 	@Inject private OverlayManager            overlayManager;
+	@Inject private OkHttpClient              runeLiteHttp;
 
 	/* ───────── fields ───────── */
-	private final OkHttpClient httpClient = new OkHttpClient();
+	private OkHttpClient       httpClient;   // REST + WS, avledet fra RuneLite sin klient
+	private HaEndpoints        endpoints;    // cachet URL/token/bruker
+	private HaPublisher        publisher;    // felles utgående kø
 	private ScheduledFuture<?> heartbeatTask;
 
 	private HttpServer      keyServer;   // eksisterende keyboard‑HTTP
 	private HaWsClient      haWsClient;  // ny WS‑klient
+	private final HaEntityMirror entityMirror = new HaEntityMirror();   // lokale HA‑tilstander
+	private HaSubscriptions.Subscription<?> mirrorSub;
 	private HAButtonOverlay overlay;     // overlay for ON/OFF
 	private volatile boolean haButtonOn; // gjeldende state
 
-	/* sensor‐toggles */
-	private boolean lastShowHealth;
-	private boolean lastShowPrayer;
-	private boolean lastShowEnergy;
-	private boolean lastShowCurrentWorld;
-	private boolean lastShowSpecialAttack;
-	private boolean lastShowCurrentSkill;
-	private boolean lastShowIdleStatus;
-
-	/* helper‑services */
-	private CurrentOpponent     opponentService;
-	private CurrentLocation     locationService;
-	private SpecialAttackStatus specialService;
-	private CurrentSkill        currentSkillService;
-	private IdleTimer           idleTimer;
+	/* sensorer – hver hendelse går kun til påslåtte sensorer som vil ha den */
+	private SensorRegistry sensors;
+	private SensorPump     pump;           // sensorlogikk + sending utenfor klienttråden
+	private TickTimer      timer;          // sensorfrister, eies av sensortråden
+	private long           statsDirty;     // StatChanged siden forrige GameTick – kun klienttråden
 
 	/* ───────── API for overlay ───────── */
 	public void setHaButtonState(boolean on) { haButtonOn = on; }
 	public boolean isHaButtonOn()            { return haButtonOn; }
 
+	/** Speilede HA‑entiteter (config «Mirrored entities») – lesing uten nettverk. */
+	public HaEntityMirror entities()         { return entityMirror; }
+
 	/* ───────── config provider ───────── */
 	@Provides
 	HomeAssistantConfig provideConfig(ConfigManager mgr)
@@ -82,45 +81,38 @@ public class HomeAssistantPlugin extends Plugin
 	{
 		super.startUp();
 
-		/* les toggles */
-		lastShowHealth        = config.showHealth();
-		lastShowPrayer        = config.showPrayer();
-		lastShowEnergy        = config.showEnergy();
-		lastShowCurrentWorld  = config.showCurrentWorld();
-		lastShowSpecialAttack = config.showSpecialAttack();
-		lastShowCurrentSkill  = config.showCurrentSkill();
-		lastShowIdleStatus    = config.showIdleStatus();
-
-		/* init helper‑klasser */
-		opponentService     = new CurrentOpponent(client, config, httpClient, this::baseUrl, this::getUserId);
-		locationService     = new CurrentLocation(client, config, httpClient, this::baseUrl, this::getUserId);
-		specialService      = new SpecialAttackStatus(client, config, httpClient, this::baseUrl, this::getUserId);
-		currentSkillService = new CurrentSkill(client, config, httpClient, this::baseUrl, this::getUserId);
-		idleTimer           = new IdleTimer(client, config, httpClient, this::baseUrl, this::getUserId);
-
-		eventBus.register(opponentService);
-		eventBus.register(locationService);
-		eventBus.register(specialService);
-		eventBus.register(currentSkillService);
-		eventBus.register(idleTimer);
-
-		boolean online = isOnline();
-		opponentService    .init(online);
-		locationService    .init(online);
-		specialService     .init(online);
-		currentSkillService.init(online);
-		idleTimer          .init(online);
-
-		/* init push */
-		if (online)
-		{
-			sendStatus("Online");
-			if (lastShowHealth)        sendCurrentHealth();
-			if (lastShowPrayer)        sendCurrentPrayer();
-			if (lastShowEnergy)        sendCurrentEnergy();
-			if (lastShowCurrentWorld)  sendCurrentWorld();
-			if (lastShowSpecialAttack) sendCurrentSpecial();
-		}
+		httpClient = buildHttpClient();
+		endpoints  = new HaEndpoints(config);
+		publisher = new HaPublisher(httpClient, config, endpoints, openOutbox());
+		publisher.setOnRecovered(() -> clientThread.invoke(this::resync));
+
+		/* init sensorer */
+		timer   = new TickTimer(System.nanoTime());
+		sensors = new SensorRegistry();
+		sensors.register(new OnlineStatus(publisher));
+		sensors.register(new HealthStatus(config, publisher));
+		sensors.register(new PrayerStatus(config, publisher));
+		sensors.register(new EnergyStatus(config, publisher));
+		sensors.register(new CurrentWorld(config, publisher));
+		sensors.register(new SpecialAttackStatus(config, publisher));
+		sensors.register(new CurrentOpponent(config, publisher, timer));
+		sensors.register(new CurrentLocation(config, publisher, loadRegions(), loadAreas()));
+		sensors.register(new NearestPoi(config, publisher, loadPois()));
+		sensors.register(new CurrentSkill(config, publisher, timer));
+		sensors.register(new IdleTimer(config, publisher, timer));
+
+		pump = new SensorPump(sensors, publisher, timer);
+		pump.start();
+
+		/* init push – avlesning på klienttråden, resten på sensortråden */
+		clientThread.invoke(() -> {
+			TickSnapshot snap = capture();
+			updatePlayer(snap);
+			pump.execute(() -> {
+				sensors.init(snap);
+				publisher.flushBatch();
+			});
+		});
 
 		scheduleHeartbeat();
 
@@ -136,9 +128,16 @@ public class HomeAssistantPlugin extends Plugin
 		}
 
 		/* ----  NYE DELER  ---- */
-		String wsUrl = config.haUrl().replaceFirst("^http", "ws") + "/api/websocket";
-		haWsClient = new HaWsClient(wsUrl, config.haToken(), this);
+		haWsClient = new HaWsClient(httpClient, executor, endpoints.webSocketUrl(), config.haToken());
+		haWsClient.subscribe(HaSubscriptions.events("kp_runelite_button_check",
+				HaWsMessage::eventState, state -> {
+					if (state != null)
+						setHaButtonState("ON".equalsIgnoreCase(state));
+				}));
+		mirrorEntities();
+		haWsClient.setOnReconnected(() -> clientThread.invoke(this::resync));
 		haWsClient.connect();
+		publisher.setWebSocket(haWsClient);
 
 		overlay = new HAButtonOverlay(this::isHaButtonOn);
 		overlayManager.add(overlay);
@@ -147,264 +146,230 @@ public class HomeAssistantPlugin extends Plugin
 	@Override
 	protected void shutDown() throws Exception
 	{
-		sendStatus("Offline");
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_BUDGET_MS);
 		cancelHeartbeat();
-
-		eventBus.unregister(opponentService);
-		eventBus.unregister(locationService);
-		eventBus.unregister(specialService);
-		eventBus.unregister(currentSkillService);
-		eventBus.unregister(idleTimer);
+		pump.stop(deadline);
+		sendStatus("Offline");
 
 		if (keyServer != null) keyServer.stop(0);
 		if (overlay   != null) overlayManager.remove(overlay);
 
+		publisher.shutDown(deadline);
+		if (haWsClient != null) haWsClient.close();
+
+		/* egen dispatcher/pool – ikke RuneLite sin – så den kan stenges helt */
+		httpClient.dispatcher().executorService().shutdown();
+		httpClient.connectionPool().evictAll();
+
 		super.shutDown();
 	}
 
-	/* ───────── config changes – uendret logikk ───────── */
-	@Subscribe
-	public void onConfigChanged(ConfigChanged ev)
+	/* (re)abonnerer på entitetene i config; tomt felt = ingen speiling */
+	private synchronized void mirrorEntities()
 	{
-		if (!"kp_home_assistant".equals(ev.getGroup()))
+		if (haWsClient == null)
 			return;
-
-		boolean online = isOnline();
-		switch (ev.getKey())
+		if (mirrorSub != null)
 		{
-			case "showHealth":
-				lastShowHealth = config.showHealth();
-				if (online) {
-					sendHealthToggle(lastShowHealth);
-					if (lastShowHealth) sendCurrentHealth();
-				}
-				break;
-			case "showPrayer":
-				lastShowPrayer = config.showPrayer();
-				if (online) {
-					sendPrayerToggle(lastShowPrayer);
-					if (lastShowPrayer) sendCurrentPrayer();
-				}
-				break;
-			case "showEnergy":
-				lastShowEnergy = config.showEnergy();
-				if (online) {
-					sendEnergyToggle(lastShowEnergy);
-					if (lastShowEnergy) sendCurrentEnergy();
-				}
-				break;
-			case "showCurrentWorld":
-				lastShowCurrentWorld = config.showCurrentWorld();
-				if (online) {
-					sendWorldToggle(lastShowCurrentWorld);
-					if (lastShowCurrentWorld) sendCurrentWorld();
-				}
-				break;
-			case "showCurrentOpponent":
-				opponentService.onConfigChanged(ev, online);
-				break;
-			case "showCurrentLocation":
-				locationService.onConfigChanged(ev, online);
-				break;
-			case "showSpecialAttack":
-				lastShowSpecialAttack = config.showSpecialAttack();
-				specialService.onConfigChanged(ev, online);
-				break;
-			case "showCurrentSkill":
-				lastShowCurrentSkill = config.showCurrentSkill();
-				currentSkillService.onConfigChanged(ev, online);
-				break;
-			case "showIdleStatus":
-				lastShowIdleStatus = config.showIdleStatus();
-				idleTimer.onConfigChanged(online);
-				break;
-			default:
+			haWsClient.unsubscribe(mirrorSub);
+			mirrorSub = null;
 		}
-	}
-
-	/* ───────── RuneLite events – uendret logikk ───────── */
-	@Subscribe
-	public void onGameStateChanged(GameStateChanged evt)
-	{
-		boolean online = isOnline();
-		sendStatus(online ? "Online" : "Offline");
+		entityMirror.clear();
 
-		if (online)
-		{
-			if (lastShowHealth)        sendCurrentHealth();
-			if (lastShowPrayer)        sendCurrentPrayer();
-			if (lastShowEnergy)        sendCurrentEnergy();
-			if (lastShowCurrentWorld)  sendCurrentWorld();
-			if (lastShowSpecialAttack) sendCurrentSpecial();
-		}
+		List<String> ids = Arrays.stream(config.mirroredEntities().split(","))
+				.map(String::trim)
+				.filter(s -> !s.isEmpty())
+				.collect(Collectors.toList());
+		if (ids.isEmpty())
+			return;
 
-		opponentService   .onGameStateChanged(evt);
-		locationService   .onGameStateChanged(evt);
-		specialService    .onStateChange(online);
-		currentSkillService.onStateChange(online);
-		idleTimer         .onConfigChanged(online);
+		mirrorSub = entityMirror.subscription(ids);
+		haWsClient.subscribe(mirrorSub);
+		log.debug("Speiler {} HA‑entiteter", ids.size());
 	}
 
-	@Subscribe
-	public void onPlayerSpawned(PlayerSpawned ev)
+	/**
+	 * Én klient for REST og WebSocket. Deler RuneLite sin konfig (proxy, user agent),
+	 * men har egen dispatcher og pool: HA er én vert, så få, langlevde keep‑alive‑
+	 * forbindelser og korte timeouts holder tick‑sending unna trege svar.
+	 */
+	private OkHttpClient buildHttpClient()
 	{
-		if (isOnline())
-		{
-			sendStatus("Online");
-			if (lastShowHealth)        sendCurrentHealth();
-			if (lastShowPrayer)        sendCurrentPrayer();
-			if (lastShowEnergy)        sendCurrentEnergy();
-			if (lastShowCurrentWorld)  sendCurrentWorld();
-			if (lastShowSpecialAttack) sendCurrentSpecial();
-		}
-
-		opponentService.onPlayerSpawned(ev);
-		locationService.onPlayerSpawned(ev);
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests()); // alt går til HA; publisher begrenser selv
+
+		return runeLiteHttp.newBuilder()
+				.dispatcher(dispatcher)
+				.connectionPool(new ConnectionPool(4, 5, TimeUnit.MINUTES))
+				.connectTimeout(5, TimeUnit.SECONDS)
+				.readTimeout(10, TimeUnit.SECONDS)
+				.writeTimeout(10, TimeUnit.SECONDS)
+				.build();
 	}
 
-	@Subscribe
-	public void onStatChanged(StatChanged ev)
+	/** Pluginens mappe under .runelite (utboks og egne regions/areas/pois.txt). */
+	private static File dataDir()
 	{
-		if (lastShowHealth && ev.getSkill() == Skill.HITPOINTS)
-			sendCurrentHealth();
-		if (lastShowPrayer && ev.getSkill() == Skill.PRAYER)
-			sendCurrentPrayer();
-
-		currentSkillService.onStatChanged(ev);
+		return new File(RuneLite.RUNELITE_DIR, "kp-home-assistant");
 	}
 
-	@Subscribe
-	public void onGameTick(GameTick tick)
+	/* innebygd regions.txt + valgfri brukerfil i samme mappe som utboksen */
+	private RegionIndex loadRegions()
 	{
-		if (lastShowEnergy        && isOnline()) sendCurrentEnergy();
-		if (lastShowSpecialAttack && isOnline()) sendCurrentSpecial();
-
-		opponentService    .onGameTick(tick);
-		locationService    .onGameTick(tick);
-		specialService     .onGameTick(tick);
-		currentSkillService.onGameTick(tick);
+		long t0 = System.nanoTime();
+		RegionIndex idx = RegionIndex.load(dataDir().toPath().resolve("regions.txt"));
+		log.debug("Lastet {} regioner på {} µs", idx.size(), (System.nanoTime() - t0) / 1_000);
+		return idx;
 	}
 
-	/* ───────── heartbeat ───────── */
-	private void scheduleHeartbeat()
+	/* innebygd areas.txt + valgfrie egne områder */
+	private AreaIndex loadAreas()
 	{
-		cancelHeartbeat();
-		heartbeatTask = executor.scheduleAtFixedRate(() -> {
-			boolean online = isOnline();
-			sendStatus(online ? "Online" : "Offline");
-
-			if (lastShowHealth)        sendCurrentHealth();
-			if (lastShowPrayer)        sendCurrentPrayer();
-			if (lastShowEnergy)        sendCurrentEnergy();
-			if (lastShowCurrentWorld)  sendCurrentWorld();
-			if (lastShowSpecialAttack) sendCurrentSpecial();
-
-			opponentService    .onHeartbeat(online);
-			locationService    .onHeartbeat(online);
-			specialService     .onHeartbeat(online);
-			currentSkillService.onHeartbeat(online);
-		}, 0, 10, TimeUnit.SECONDS);
+		long t0 = System.nanoTime();
+		AreaIndex idx = AreaIndex.load(dataDir().toPath().resolve("areas.txt"));
+		log.debug("Lastet {} områder på {} µs", idx.size(), (System.nanoTime() - t0) / 1_000);
+		return idx;
 	}
 
-	private void cancelHeartbeat()
+	/* innebygd pois.txt + valgfrie egne punkt */
+	private PoiIndex loadPois()
 	{
-		if (heartbeatTask != null)
-			heartbeatTask.cancel(false);
-		heartbeatTask = null;
+		long t0 = System.nanoTime();
+		PoiIndex idx = PoiIndex.load(dataDir().toPath().resolve("pois.txt"));
+		log.debug("Lastet {} POI på {} µs", idx.size(), (System.nanoTime() - t0) / 1_000);
+		return idx;
 	}
 
-	/* ───────── helpers ───────── */
-	private boolean isOnline()
+	/** Utboks for usendte overganger; null (kun logget) hvis fila ikke kan åpnes. */
+	private HaOutbox openOutbox()
 	{
-		return client.getGameState() == GameState.LOGGED_IN
-				&& client.getLocalPlayer() != null;
+		File dir = dataDir();
+		try
+		{
+			return new HaOutbox(dir.toPath().resolve("outbox.dat"), config.outboxSizeKb() * 1024);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Kunne ikke åpne HA‑utboks i {}", dir, ex);
+			return null;
+		}
 	}
 
-	private String getUserId()
+	/* ───────── config changes ───────── */
+	@Subscribe
+	public void onConfigChanged(ConfigChanged ev)
 	{
-		Player p = client.getLocalPlayer();
-		if (p == null) return "unknown";
-		String raw = p.getName().toLowerCase();
-		return SANITIZE.matcher(raw).replaceAll("");
+		if (!"kp_home_assistant".equals(ev.getGroup()))
+			return;
+
+		if ("haUrl".equals(ev.getKey()) || "haToken".equals(ev.getKey()))
+		{
+			endpoints.reload();
+			if (haWsClient != null)              // socketen følger REST til ny vert/token
+				haWsClient.reconfigure(endpoints.webSocketUrl(), config.haToken());
+			return;
+		}
+		if ("mirroredEntities".equals(ev.getKey()))
+		{
+			mirrorEntities();
+			return;
+		}
+
+		String key = ev.getKey();
+		clientThread.invoke(() -> {
+			TickSnapshot snap = capture();
+			pump.execute(() -> {
+				if (sensors.onConfigChanged(key, snap))
+					publisher.flushBatch();
+			});
+		});
 	}
 
-	private String baseUrl()
+	/* ───────── RuneLite events → sensorer ───────── */
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged evt)
 	{
-		return config.haUrl().replaceAll("/+$", "");
+		TickSnapshot snap = capture();
+		updatePlayer(snap);
+		pump.gameStateChanged(snap);
 	}
 
-	private void post(String url, String json)
+	@Subscribe
+	public void onPlayerSpawned(PlayerSpawned ev)
 	{
-		RequestBody body = RequestBody.create(JSON, json);
-		Request req = new Request.Builder()
-				.url(url)
-				.addHeader("Authorization", "Bearer " + config.haToken())
-				.post(body)
-				.build();
+		if (ev.getPlayer() != client.getLocalPlayer())
+			return;                              // andre spillere er uinteressante
 
-		httpClient.newCall(req).enqueue(new Callback()
-		{
-			@Override public void onFailure(Call c, IOException e) { }
-			@Override public void onResponse(Call c, Response r) throws IOException { r.close(); }
-		});
+		TickSnapshot snap = capture();
+		updatePlayer(snap);
+		pump.playerSpawned(snap);
 	}
 
-	/* ───────── SEND‑metoder (identisk med original) ───────── */
-
-	private void postF(String topic, String fmt, Object... args)
+	/* login/hop gir én StatChanged pr. ferdighet – bare merk, GameTick sender én gang */
+	@Subscribe
+	public void onStatChanged(StatChanged ev)
 	{
-		post(String.format("%s/api/events/kp_runelite_%s_%s",
-						baseUrl(), topic, getUserId()),
-				String.format(fmt, args));
+		statsDirty |= 1L << ev.getSkill().ordinal();
 	}
 
-	private void sendStatus(String status)
-	{ postF("update", "{\"status\":\"%s\"}", status); }
-
-	private void sendCurrentHealth()
+	@Subscribe
+	public void onGameTick(GameTick tick)
 	{
-		int cur = client.getBoostedSkillLevel(Skill.HITPOINTS);
-		int max = client.getRealSkillLevel(Skill.HITPOINTS);
-		postF("health", "{\"current\":%d,\"max\":%d}", cur, max);
+		long stats = statsDirty;
+		statsDirty = 0;
+		pump.tick(capture(), stats);             // kun avlesning her – resten på sensortråden
 	}
 
-	private void sendHealthToggle(boolean on)
-	{ postF("health", "{\"enabled\":%b}", on); }
-
-	private void sendCurrentPrayer()
+	/* ───────── heartbeat ───────── */
+	/*
+	 * Trådmodell: Client leses kun på klienttråden (capture), sensortilstand
+	 * eies av sensortråden (SensorPump) og utgående kø/utboks av publisher‑
+	 * tråden. RuneLite sin delte scheduler brukes bare til å be klienttråden
+	 * om en avlesning – ingen Client‑kall der.
+	 */
+	private void scheduleHeartbeat()
 	{
-		int cur = client.getBoostedSkillLevel(Skill.PRAYER);
-		int max = client.getRealSkillLevel(Skill.PRAYER);
-		postF("prayer", "{\"current\":%d,\"max\":%d}", cur, max);
+		cancelHeartbeat();
+		heartbeatTask = executor.scheduleAtFixedRate(
+				() -> clientThread.invoke(this::resync), 0, 10, TimeUnit.SECONDS);
 	}
 
-	private void sendPrayerToggle(boolean on)
-	{ postF("prayer", "{\"enabled\":%b}", on); }
-
-	private void sendCurrentEnergy()
+	/** Sender alle aktive sensorer på nytt, også uendrede (heartbeat og etter HA‑brudd). Klienttråden. */
+	private void resync()
 	{
-		int pct = client.getEnergy() / 100;
-		postF("energy", "{\"current\":%d,\"max\":100}", pct);
+		TickSnapshot snap = capture();
+		pump.execute(() -> {
+			timer.sync(System.nanoTime());       // frister løper også uten GameTicks
+			publisher.reassert();                // eneste sted uendrede verdier sendes på nytt
+			sensors.onHeartbeat(snap);
+			publisher.flushBatch();
+			log.debug("HA publisher: {}", publisher.stats());
+		});
 	}
 
-	private void sendEnergyToggle(boolean on)
-	{ postF("energy", "{\"enabled\":%b}", on); }
-
-	private void sendCurrentWorld()
+	private void cancelHeartbeat()
 	{
-		int world = client.getWorld();
-		postF("world", "{\"world\":%d}", world);
+		if (heartbeatTask != null)
+			heartbeatTask.cancel(false);
+		heartbeatTask = null;
 	}
 
-	private void sendWorldToggle(boolean on)
-	{ postF("world", "{\"enabled\":%b}", on); }
+	/* ───────── helpers ───────── */
+	/** Eneste sted pluginen leser spilltilstand; sensorene får kun snapshoten. Klienttråden. */
+	private TickSnapshot capture()
+	{
+		return TickSnapshot.capture(client);
+	}
 
-	private void sendCurrentSpecial()
+	/** Ny bruker‑ID kun ved innlogging/navnebytte – ellers cachet i endpoints. */
+	private void updatePlayer(TickSnapshot snap)
 	{
-		int pct = client.getVarpValue(VarPlayer.SPECIAL_ATTACK_PERCENT) / 10;
-		postF("special", "{\"current\":%d,\"max\":100}", pct);
+		if (snap.playerName != null)
+			endpoints.updatePlayer(snap.playerName);
 	}
 
-	private void sendSpecialToggle(boolean on)
-	{ postF("special", "{\"enabled\":%b}", on); }
+	/* ───────── SEND‑metoder ───────── */
+
+	private void sendStatus(String status)
+	{ publisher.publishTransition("update", publisher.payload().put("status", status)); }
 }
@@ -0,0 +1,196 @@
+package com.krisped;
+
+import java.util.Arrays;
+
+/**
+ * Gjenbrukbar, trådbundet JSON‑skriver for flate sensor‑payloads
+ * ({"current":12,"max":99}). Skriver UTF‑8 rett i en byte‑buffer uten
+ * boxing eller mellomliggende Strings; strenger escapes korrekt.
+ * Hent via {@link HaPublisher#payload()} – én instans pr. tråd.
+ */
+public final class JsonPayload
+{
+    private static final byte[] TRUE  = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX   = "0123456789abcdef".getBytes();
+
+    private byte[] buf = new byte[128];
+    private int    len;
+    private boolean closed;
+
+    /** Starter et nytt objekt og forkaster forrige innhold. */
+    public JsonPayload begin()
+    {
+        len    = 0;
+        closed = false;
+        write('{');
+        return this;
+    }
+
+    public JsonPayload put(String name, int value)
+    {
+        name(name);
+        writeInt(value);
+        return this;
+    }
+
+    public JsonPayload put(String name, boolean value)
+    {
+        name(name);
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonPayload put(String name, String value)
+    {
+        name(name);
+        if (value == null)
+        {
+            write('n'); write('u'); write('l'); write('l');
+        }
+        else
+        {
+            writeString(value);
+        }
+        return this;
+    }
+
+    /** Lukker objektet; idempotent. */
+    JsonPayload end()
+    {
+        if (!closed)
+        {
+            write('}');
+            closed = true;
+        }
+        return this;
+    }
+
+    int length()
+    {
+        return len;
+    }
+
+    /** Samme bytes som {@code other}? Brukes til endringsdeteksjon uten kopi. */
+    boolean contentEquals(byte[] other)
+    {
+        return other != null && Arrays.equals(buf, 0, len, other, 0, other.length);
+    }
+
+    /** Eneste allokering: ferdig request‑body. */
+    byte[] toByteArray()
+    {
+        return Arrays.copyOf(buf, len);
+    }
+
+    /* ───────── skriving ───────── */
+
+    private void name(String name)
+    {
+        if (len > 1)
+            write(',');
+        writeString(name);
+        write(':');
+    }
+
+    private void writeInt(int v)
+    {
+        if (v == Integer.MIN_VALUE)
+        {
+            writeAscii("-2147483648");
+            return;
+        }
+        if (v < 0)
+        {
+            write('-');
+            v = -v;
+        }
+        int digits = 1;
+        for (int t = v; t >= 10; t /= 10)
+            digits++;
+        ensure(digits);
+        for (int i = len + digits - 1; i >= len; i--)
+        {
+            buf[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        len += digits;
+    }
+
+    private void writeString(String s)
+    {
+        write('"');
+        for (int i = 0, n = s.length(); i < n; i++)
+        {
+            char c = s.charAt(i);
+            switch (c)
+            {
+                case '"':  write('\\'); write('"');  break;
+                case '\\': write('\\'); write('\\'); break;
+                case '\n': write('\\'); write('n');  break;
+                case '\r': write('\\'); write('r');  break;
+                case '\t': write('\\'); write('t');  break;
+                default:
+                    if (c < 0x20)
+                    {
+                        write('\\'); write('u'); write('0'); write('0');
+                        write(HEX[c >> 4]); write(HEX[c & 0xF]);
+                    }
+                    else if (c < 0x80)
+                    {
+                        write(c);
+                    }
+                    else if (c < 0x800)
+                    {
+                        write(0xC0 | (c >> 6));
+                        write(0x80 | (c & 0x3F));
+                    }
+                    else if (Character.isHighSurrogate(c) && i + 1 < n
+                            && Character.isLowSurrogate(s.charAt(i + 1)))
+                    {
+                        int cp = Character.toCodePoint(c, s.charAt(++i));
+                        write(0xF0 | (cp >> 18));
+                        write(0x80 | ((cp >> 12) & 0x3F));
+                        write(0x80 | ((cp >> 6) & 0x3F));
+                        write(0x80 | (cp & 0x3F));
+                    }
+                    else if (Character.isSurrogate(c))
+                    {
+                        write('?');                  // ensom surrogat
+                    }
+                    else
+                    {
+                        write(0xE0 | (c >> 12));
+                        write(0x80 | ((c >> 6) & 0x3F));
+                        write(0x80 | (c & 0x3F));
+                    }
+            }
+        }
+        write('"');
+    }
+
+    private void writeAscii(String s)
+    {
+        for (int i = 0, n = s.length(); i < n; i++)
+            write(s.charAt(i));
+    }
+
+    private void write(byte[] b)
+    {
+        ensure(b.length);
+        System.arraycopy(b, 0, buf, len, b.length);
+        len += b.length;
+    }
+
+    private void write(int b)
+    {
+        ensure(1);
+        buf[len++] = (byte) b;
+    }
+
+    private void ensure(int extra)
+    {
+        if (len + extra > buf.length)
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+    }
+}
@@ -0,0 +1,21 @@
+package com.krisped;
+
+/** Hva publisheren kaster når utgående kø er full. */
+public enum OverflowPolicy
+{
+    DROP_OLDEST("Drop oldest"),
+    DROP_LOW_PRIORITY("Drop levels first");
+
+    private final String label;
+
+    OverflowPolicy(String label)
+    {
+        this.label = label;
+    }
+
+    @Override
+    public String toString()
+    {
+        return label;
+    }
+}
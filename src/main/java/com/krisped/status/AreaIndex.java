@@ -0,0 +1,235 @@
+package com.krisped.status;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Navngitte områder (rektangler/polygoner i verdenskoordinater, pr. plan)
+ * lagt i et rutenett med én celle pr. region (64×64 ruter). Et oppslag finner
+ * cella med binærsøk og tester bare områdene i den – innerste (minste)
+ * område først, så første treff er svaret.
+ * <p>
+ * Leses fra {@code areas.txt} i pluginen pluss en valgfri brukerfil med samme
+ * format (legges til). Én linje pr. område:
+ * <pre>
+ * Grand Exchange bank = 0: 3160,3484 3170,3494        (2 punkt = rektangel, hjørner inkl.)
+ * Fremennik Isles     = *: 2300,3780 2430,3780 …      (3+ punkt = polygon, * = alle plan)
+ * </pre>
+ * Begge former tar med rutene på kanten: rektangelets hjørner og en polygons
+ * hjørner/kanter er ruter som hører til området.
+ * Ikke trådsikker (siste celle caches) – brukes kun fra sensortråden.
+ */
+@Slf4j
+public final class AreaIndex
+{
+    static final String RESOURCE = "areas.txt";
+
+    private static final Area[] NONE = new Area[0];
+
+    private static final class Area
+    {
+        final String name;
+        final int    plane;                        // -1 = alle plan
+        final int    minX, minY, maxX, maxY;
+        final int[]  xs, ys;                       // null for rektangel
+        final long   size;
+
+        Area(String name, int plane, int[] xs, int[] ys)
+        {
+            this.name  = name;
+            this.plane = plane;
+            int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+            for (int i = 0; i < xs.length; i++)
+            {
+                x0 = Math.min(x0, xs[i]);
+                y0 = Math.min(y0, ys[i]);
+                x1 = Math.max(x1, xs[i]);
+                y1 = Math.max(y1, ys[i]);
+            }
+            minX = x0; minY = y0; maxX = x1; maxY = y1;
+            this.xs = xs.length > 2 ? xs : null;
+            this.ys = xs.length > 2 ? ys : null;
+            size = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+        }
+
+        boolean contains(int x, int y, int p)
+        {
+            if ((plane >= 0 && plane != p) || x < minX || x > maxX || y < minY || y > maxY)
+                return false;
+            if (xs == null)
+                return true;
+
+            /* hjørnene er ruter; ruter på kanten er med, som for rektangler */
+            boolean in = false;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++)
+            {
+                if (onEdge(xs[j], ys[j], xs[i], ys[i], x, y))
+                    return true;
+                if ((ys[i] > y) != (ys[j] > y)
+                        && x < (double) (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i])
+                    in = !in;
+            }
+            return in;
+        }
+
+        private static boolean onEdge(int x1, int y1, int x2, int y2, int x, int y)
+        {
+            long cross = (long) (x2 - x1) * (y - y1) - (long) (y2 - y1) * (x - x1);
+            return cross == 0
+                    && x >= Math.min(x1, x2) && x <= Math.max(x1, x2)
+                    && y >= Math.min(y1, y2) && y <= Math.max(y1, y2);
+        }
+    }
+
+    private final int[]    cells;                  // region‑ID, sortert
+    private final Area[][] areas;                  // pr. celle, minste først
+    private final int      count;
+
+    /* siste celle */
+    private int    lastCell = -1;
+    private Area[] lastAreas = NONE;
+
+    private AreaIndex(int[] cells, Area[][] areas, int count)
+    {
+        this.cells = cells;
+        this.areas = areas;
+        this.count = count;
+    }
+
+    /** Innebygd tabell + {@code extra} om den finnes. */
+    public static AreaIndex load(Path extra)
+    {
+        List<Area> list = new ArrayList<>();
+
+        try (InputStream in = AreaIndex.class.getResourceAsStream(RESOURCE))
+        {
+            if (in == null)
+                log.warn("Fant ikke {} i pluginen", RESOURCE);
+            else
+                parse(new InputStreamReader(in, StandardCharsets.UTF_8), RESOURCE, list);
+        }
+        catch (IOException ex)
+        {
+            log.warn("Kunne ikke lese {}", RESOURCE, ex);
+        }
+
+        if (extra != null && Files.isRegularFile(extra))
+        {
+            try (Reader r = Files.newBufferedReader(extra, StandardCharsets.UTF_8))
+            {
+                parse(r, extra.toString(), list);
+            }
+            catch (IOException ex)
+            {
+                log.warn("Kunne ikke lese {}", extra, ex);
+            }
+        }
+
+        /* fordel på celler; stabil sortering gjør at senere linjer taper ved lik størrelse */
+        list.sort(Comparator.comparingLong(a -> a.size));
+        TreeMap<Integer, List<Area>> grid = new TreeMap<>();
+        for (Area a : list)
+            for (int cx = a.minX >> 6; cx <= a.maxX >> 6; cx++)
+                for (int cy = a.minY >> 6; cy <= a.maxY >> 6; cy++)
+                    grid.computeIfAbsent(cx << 8 | cy, k -> new ArrayList<>()).add(a);
+
+        int[]    cells = new int[grid.size()];
+        Area[][] areas = new Area[grid.size()][];
+        int i = 0;
+        for (Map.Entry<Integer, List<Area>> e : grid.entrySet())
+        {
+            cells[i] = e.getKey();
+            areas[i] = e.getValue().toArray(NONE);
+            i++;
+        }
+        return new AreaIndex(cells, areas, list.size());
+    }
+
+    /** Innerste område som dekker punktet, eller null. */
+    public String find(int x, int y, int plane)
+    {
+        int cell = (x >> 6) << 8 | (y >> 6);
+        if (cell != lastCell)
+        {
+            int i = Arrays.binarySearch(cells, cell);
+            lastAreas = i >= 0 ? areas[i] : NONE;
+            lastCell  = cell;
+        }
+        for (Area a : lastAreas)
+            if (a.contains(x, y, plane))
+                return a.name;
+        return null;
+    }
+
+    public int size()
+    {
+        return count;
+    }
+
+    /* ───────── intern ───────── */
+
+    private static void parse(Reader reader, String source, List<Area> out) throws IOException
+    {
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null)
+        {
+            lineNo++;
+            int hash = line.indexOf('#');
+            if (hash >= 0)
+                line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+
+            try
+            {
+                out.add(parseArea(line));
+            }
+            catch (IllegalArgumentException ex)
+            {
+                log.debug("{}:{} ugyldig område – {}", source, lineNo, ex.getMessage());
+            }
+        }
+    }
+
+    private static Area parseArea(String line)
+    {
+        int eq    = line.lastIndexOf('=');
+        int colon = line.indexOf(':', eq + 1);
+        if (eq <= 0 || colon < 0)
+            throw new IllegalArgumentException("forventet «Navn = plan: x,y x,y …»");
+
+        String name  = line.substring(0, eq).trim();
+        String plane = line.substring(eq + 1, colon).trim();
+        String[] pts = line.substring(colon + 1).trim().split("\\s+");
+        if (name.isEmpty() || pts.length < 2)
+            throw new IllegalArgumentException("mangler navn eller punkt");
+
+        int[] xs = new int[pts.length];
+        int[] ys = new int[pts.length];
+        for (int i = 0; i < pts.length; i++)
+        {
+            int comma = pts[i].indexOf(',');
+            if (comma < 0)
+                throw new IllegalArgumentException("punkt «" + pts[i] + "»");
+            xs[i] = Integer.parseInt(pts[i].substring(0, comma).trim());
+            ys[i] = Integer.parseInt(pts[i].substring(comma + 1).trim());
+        }
+        return new Area(name, "*".equals(plane) ? -1 : Integer.parseInt(plane), xs, ys);
+    }
+}
@@ -1,149 +1,112 @@
 package com.krisped.status;
 
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
-import java.io.IOException;
-import java.time.Instant;
-import java.util.function.Supplier;
-import java.util.regex.Pattern;
+import java.util.EnumSet;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.*;
-import net.runelite.api.events.*;
-import net.runelite.client.events.ConfigChanged;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 @Slf4j
-public class CurrentOpponent
+public class CurrentOpponent implements Sensor
 {
-    private static final MediaType JSON =
-            MediaType.get("application/json; charset=utf-8");
-    private static final Pattern SANITIZE =
-            Pattern.compile("[^a-z0-9]");
-
-    private static final long IDLE_TIMEOUT_MS = 5_000;   // 5 sek før «None»
+    private static final int IDLE_TIMEOUT_TICKS = TickTimer.ticks(5_000);   // 5 sek før «None»
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.GAME_TICK, Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
 
     /* ───────── deps ───────── */
-    private final Client client;
     private final HomeAssistantConfig cfg;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> userId;
+    private final HaPublisher publisher;
+    private final TickTimer timer;
 
     /* ───────── state ───────── */
-    private boolean lastShow;
+    private volatile boolean lastShow;
     private String  rememberedOpponent = null;
-    private long    lastSeenMillis     = 0;
+    private long    lastSeenTick       = 0;
+    private TickTimer.Timeout expiry;
 
     public CurrentOpponent(
-            Client client,
             HomeAssistantConfig cfg,
-            OkHttpClient http,
-            Supplier<String> baseUrl,
-            Supplier<String> userId)
+            HaPublisher publisher,
+            TickTimer timer)
     {
-        this.client  = client;
-        this.cfg     = cfg;
-        this.http    = http;
-        this.baseUrl = baseUrl;
-        this.userId  = userId;
-        this.lastShow = cfg.showCurrentOpponent();
+        this.cfg       = cfg;
+        this.publisher = publisher;
+        this.timer     = timer;
+        this.lastShow  = cfg.showCurrentOpponent();
     }
 
+    @Override public String configKey()   { return "showCurrentOpponent"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
     /* ───────── init ───────── */
-    public void init(boolean online)
+    @Override
+    public void init(TickSnapshot s)
     {
-        if (online && lastShow)
-            tickAndMaybeSend();
+        if (s.online && lastShow)
+            tickAndMaybeSend(s);
     }
 
     /* ───────── config endret ───────── */
-    public void onConfigChanged(ConfigChanged ev, boolean online)
+    @Override
+    public void onToggle(TickSnapshot s)
     {
-        if (!"kp_home_assistant".equals(ev.getGroup())
-                || !"showCurrentOpponent".equals(ev.getKey()))
-            return;
-
         lastShow = cfg.showCurrentOpponent();
-        if (online)
+        if (!lastShow && expiry != null)
+            expiry.cancel();
+        if (s.online)
         {
             sendToggle(lastShow);
-            if (lastShow) tickAndMaybeSend();
+            if (lastShow) tickAndMaybeSend(s);
         }
     }
 
     /* ───────── events ───────── */
-    public void onGameStateChanged(GameStateChanged ev) { if (lastShow) tickAndMaybeSend(); }
-    public void onPlayerSpawned   (PlayerSpawned     ev) { if (lastShow) tickAndMaybeSend(); }
-    public void onGameTick        (GameTick          t)  { if (lastShow) tickAndMaybeSend(); }
-    public void onHeartbeat       (boolean online)       { if (lastShow && online) tickAndMaybeSend(); }
+    @Override public void onGameStateChanged(TickSnapshot s) { tickAndMaybeSend(s); }
+    @Override public void onPlayerSpawned   (TickSnapshot s) { tickAndMaybeSend(s); }
+    @Override public void onGameTick        (TickSnapshot s) { tickAndMaybeSend(s); }
+    @Override public void onHeartbeat       (TickSnapshot s) { if (s.online) tickAndMaybeSend(s); }
 
     /* ───────── hovedlogikk ───────── */
-    private void tickAndMaybeSend()
+    private void tickAndMaybeSend(TickSnapshot s)
     {
-        String now = null;
-        Actor target = client.getLocalPlayer() != null
-                ? client.getLocalPlayer().getInteracting()
-                : null;
-        if (target != null && target.getName() != null)
-            now = target.getName();
+        String now = s.interacting;
+        if (now == null)
+            return;                              // «None» kommer fra expire()
 
-        long nowMs = Instant.now().toEpochMilli();
-        boolean changed = false;
-
-        if (now != null)
+        if (!now.equals(rememberedOpponent))
         {
-            if (!now.equals(rememberedOpponent))
-            {
-                rememberedOpponent = now;
-                changed = true;
-            }
-            lastSeenMillis = nowMs;
+            rememberedOpponent = now;
+            sendOpponent(now);
         }
-        else if (rememberedOpponent != null && nowMs - lastSeenMillis >= IDLE_TIMEOUT_MS)
+        lastSeenTick = timer.now();
+        if (expiry == null || !expiry.isPending())
+            expiry = timer.schedule(IDLE_TIMEOUT_TICKS, this::expire);
+    }
+
+    /* fristen flyttes ikke hver tick – ved utløp sjekkes om målet er sett siden */
+    private void expire()
+    {
+        if (rememberedOpponent == null)
+            return;
+        long idle = timer.now() - lastSeenTick;
+        if (idle < IDLE_TIMEOUT_TICKS)
         {
-            rememberedOpponent = null;
-            changed = true;
+            expiry = timer.schedule(IDLE_TIMEOUT_TICKS - idle, this::expire);
+            return;
         }
-
-        if (changed)
-            sendOpponent(rememberedOpponent == null ? "None" : rememberedOpponent);
+        rememberedOpponent = null;
+        sendOpponent("None");
     }
 
     /* ───────── sending ───────── */
     private void sendOpponent(String opp)
     {
-        post(
-                String.format("%s/api/events/kp_runelite_opponent_%s",
-                        baseUrl.get(), userId.get()),
-                String.format("{\"opponent\":\"%s\"}", opp)
-        );
+        publisher.publishTransition("opponent", publisher.payload().put("opponent", opp));
     }
 
     private void sendToggle(boolean on)
     {
-        post(
-                String.format("%s/api/events/kp_runelite_opponent_%s",
-                        baseUrl.get(), userId.get()),
-                String.format("{\"enabled\":%b}", on)
-        );
-    }
-
-    private void post(String url, String json)
-    {
-        RequestBody body = RequestBody.create(JSON, json);
-        Request req = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer " + cfg.haToken())
-                .post(body)
-                .build();
-
-        http.newCall(req).enqueue(new okhttp3.Callback()
-        {
-            @Override public void onFailure(okhttp3.Call c, IOException e) { /* ignore */ }
-            @Override public void onResponse(okhttp3.Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publishToggle("opponent", on);
     }
 }
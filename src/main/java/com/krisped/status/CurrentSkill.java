@@ -1,53 +1,45 @@
 package com.krisped.status;
 
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
-import java.io.IOException;
-import java.time.Instant;
-import java.util.EnumMap;
-import java.util.Map;
-import java.util.function.Supplier;
+import java.util.EnumSet;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.Client;
 import net.runelite.api.Skill;
-import net.runelite.api.events.GameStateChanged;
-import net.runelite.api.events.GameTick;
-import net.runelite.api.events.PlayerSpawned;
-import net.runelite.api.events.StatChanged;
-import net.runelite.client.eventbus.Subscribe;
-import net.runelite.client.events.ConfigChanged;
-import okhttp3.*;
 
 @Slf4j
-public class CurrentSkill
+public class CurrentSkill implements Sensor
 {
-    private static final MediaType JSON =
-            MediaType.get("application/json; charset=utf-8");
-    private static final long IDLE_TIMEOUT_MS = 120_000;   // 2 min
-    private static final long START_DELAY_MS  =   5_000;   // 5 s
+    private static final int IDLE_TIMEOUT_TICKS = TickTimer.ticks(120_000);   // 2 min
+    private static final int START_DELAY_TICKS  = TickTimer.ticks(  5_000);   // 5 s
+    private static final int RATE_TICKS         = TickTimer.ticks( 10_000);   // XP/t maks hvert 10. s
+    private static final Skill[] SKILLS = Skill.values();
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.STAT_CHANGED, Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED);
 
-    private final Client client;
     private final HomeAssistantConfig cfg;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> userId;
+    private final HaPublisher publisher;
+    private final TickTimer timer;
 
-    private boolean lastShow;
+    private volatile boolean lastShow;
     private boolean snapshotTaken = false;
-    private long    allowFromMs   = 0;
+    private boolean armed         = false;         // START_DELAY passert
 
-    private final Map<Skill,Integer> xpMap = new EnumMap<>(Skill.class);
+    private final int[] xpNow = new int[SKILLS.length];   // indeks = Skill.ordinal()
+    private final XpTracker tracker = new XpTracker();
     private String rememberedSkill = null;
-    private long   lastSeenMillis  = 0;
+    private int    activeSkill     = -1;           // ordinal for «xp», -1 = ingen
+    private long   lastSeenTick    = 0;
+    private TickTimer.Timeout startDelay;
+    private TickTimer.Timeout expiry;
+    private TickTimer.Timeout rateTimer;
 
-    public CurrentSkill(Client client, HomeAssistantConfig cfg, OkHttpClient http,
-                        Supplier<String> baseUrl, Supplier<String> userId)
+    public CurrentSkill(HomeAssistantConfig cfg, HaPublisher publisher, TickTimer timer)
     {
-        this.client   = client;
-        this.cfg      = cfg;
-        this.http     = http;
-        this.baseUrl  = baseUrl;
-        this.userId   = userId;
-        this.lastShow = cfg.showCurrentSkill();
+        this.cfg       = cfg;
+        this.publisher = publisher;
+        this.timer     = timer;
+        this.lastShow  = cfg.showCurrentSkill();
     }
 
     /* ───────── helpers ───────── */
@@ -55,34 +47,33 @@ public class CurrentSkill
     {
         snapshotTaken   = false;
         rememberedSkill = null;
-        lastSeenMillis  = 0;
-        allowFromMs     = Instant.now().toEpochMilli() + START_DELAY_MS;
+        lastSeenTick    = 0;
+        armed           = false;
+        if (expiry != null)     expiry.cancel();
+        if (startDelay != null) startDelay.cancel();
+        if (rateTimer != null)  rateTimer.cancel();
+        activeSkill = -1;
+        startDelay = timer.schedule(START_DELAY_TICKS, () -> armed = true);
     }
 
-    /* ───────── lifecycle ───────── */
-    public void init(boolean online)
-    {
-        if (online && lastShow) sendSkill("None");
-        resetSnapshot();
-    }
+    @Override public String configKey()   { return "showCurrentSkill"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
 
-    /** Kalles fra plugin når online/offline endres. */
-    public void onStateChange(boolean online)
+    /* ───────── lifecycle ───────── */
+    @Override
+    public void init(TickSnapshot s)
     {
-        if (online && lastShow) sendSkill("None");
+        if (s.online && lastShow) sendSkill("None");
+        tracker.reset(timer.now());                    // ny økt
         resetSnapshot();
     }
 
-    /** Kalles hvert 10. s fra plugin – holder grensesnittet komplett. */
-    public void onHeartbeat(boolean online) { /* ingen periodisk logikk nødvendig */ }
-
-    public void onConfigChanged(ConfigChanged ev, boolean online)
+    @Override
+    public void onToggle(TickSnapshot s)
     {
-        if (!"kp_home_assistant".equals(ev.getGroup())
-                || !"showCurrentSkill".equals(ev.getKey())) return;
-
         lastShow = cfg.showCurrentSkill();
-        if (online)
+        if (s.online)
         {
             sendToggle(lastShow);
             sendSkill(lastShow ? "None" : "Disabled");
@@ -91,74 +82,106 @@ public class CurrentSkill
     }
 
     /* ───────── reset på hop/login ───────── */
-    @Subscribe public void onGameStateChanged(GameStateChanged e)
-    { if (e.getGameState()==net.runelite.api.GameState.LOGGED_IN) resetSnapshot(); }
+    @Override public void onGameStateChanged(TickSnapshot s)
+    {
+        if (s.online) sendSkill("None");
+        resetSnapshot();
+    }
 
-    @Subscribe public void onPlayerSpawned(PlayerSpawned e) { resetSnapshot(); }
+    @Override public void onPlayerSpawned(TickSnapshot s) { resetSnapshot(); }
 
-    /* ───────── StatChanged ───────── */
-    @Subscribe public void onStatChanged(StatChanged ev)
+    /* ───────── StatChanged (samlet pr. tick) ───────── */
+    @Override public void onStatsChanged(long skills, TickSnapshot before, TickSnapshot s)
     {
-        if (!lastShow) return;
-        if (Instant.now().toEpochMilli() < allowFromMs) return;
-
-        Skill skill = ev.getSkill();
-        if (skill == Skill.HITPOINTS) return;          // hopp over HP-regen
+        if (!armed) return;
 
-        int newXp = ev.getXp();
+        skills &= ~(1L << Skill.HITPOINTS.ordinal());  // hopp over HP-regen
+        if (skills == 0) return;
 
         if (!snapshotTaken)                            // første reelle dropp
         {
-            for (Skill s : Skill.values())
-                xpMap.put(s, client.getSkillExperience(s));
+            for (Skill sk : SKILLS)                        // XP fra forrige tick, før droppene
+                xpNow[sk.ordinal()] = before.xp(sk);
             snapshotTaken = true;
         }
 
-        int prev = xpMap.getOrDefault(skill, newXp);
-        if (newXp <= prev) return;                     // ingen økning
+        /* flere ferdigheter i samme tick: den med mest XP blir «aktiv» */
+        int best = -1, bestGain = 0;
+        for (long m = skills; m != 0; m &= m - 1)
+        {
+            int idx   = Long.numberOfTrailingZeros(m);
+            int newXp = s.xp(SKILLS[idx]);
+            int gain  = newXp - xpNow[idx];
+            if (gain <= 0) continue;                   // ingen økning (boost/drain)
+
+            xpNow[idx] = newXp;
+            tracker.add(idx, gain, newXp, timer.now());
+            if (gain > bestGain)
+            {
+                best     = idx;
+                bestGain = gain;
+            }
+        }
+        if (best < 0) return;
 
-        xpMap.put(skill, newXp);
-        rememberedSkill = skill.getName();
-        lastSeenMillis  = Instant.now().toEpochMilli();
+        rememberedSkill = SKILLS[best].getName();
+        activeSkill     = best;
+        lastSeenTick    = timer.now();
         sendSkill(rememberedSkill);
+        if (expiry == null || !expiry.isPending())
+            expiry = timer.schedule(IDLE_TIMEOUT_TICKS, this::expire);
+        if (rateTimer == null || !rateTimer.isPending())
+        {
+            sendRates();                               // første dropp med en gang, deretter strupet
+            rateTimer = timer.schedule(RATE_TICKS, this::rateTick);
+        }
+    }
+
+    /* rater sendes med fast takt så lenge en ferdighet er aktiv */
+    private void rateTick()
+    {
+        if (activeSkill < 0 || !lastShow) return;
+        sendRates();
+        rateTimer = timer.schedule(RATE_TICKS, this::rateTick);
     }
 
-    @Subscribe public void onGameTick(GameTick t)
+    /* 2 min uten XP → «None»; fristen forlenges først når den utløper */
+    private void expire()
     {
-        if (!lastShow) return;
+        if (rememberedSkill == null || !lastShow) return;
 
-        if (rememberedSkill != null
-                && Instant.now().toEpochMilli() - lastSeenMillis >= IDLE_TIMEOUT_MS)
+        long idle = timer.now() - lastSeenTick;
+        if (idle < IDLE_TIMEOUT_TICKS)
         {
-            rememberedSkill = null;
-            sendSkill("None");
+            expiry = timer.schedule(IDLE_TIMEOUT_TICKS - idle, this::expire);
+            return;
         }
+        rememberedSkill = null;
+        sendSkill("None");
+        if (rateTimer != null) rateTimer.cancel();
+        sendRates();                                   // siste rate før pause
+        activeSkill = -1;
     }
 
-    /* ───────── HTTP ───────── */
+    /* ───────── sending ───────── */
     private void sendSkill(String s)
     {
-        post(String.format("%s/api/events/kp_runelite_skill_%s", baseUrl.get(), userId.get()),
-                String.format("{\"skill\":\"%s\"}", s));
+        publisher.publishTransition("skill", publisher.payload().put("skill", s));
     }
-    private void sendToggle(boolean en)
+    private void sendRates()
     {
-        post(String.format("%s/api/events/kp_runelite_skill_%s", baseUrl.get(), userId.get()),
-                String.format("{\"enabled\":%b}", en));
+        if (activeSkill < 0) return;
+        long now = timer.now();
+        long ttl = tracker.secondsToLevel(activeSkill, now);
+        publisher.publish("xp", publisher.payload()
+                .put("skill", SKILLS[activeSkill].getName())
+                .put("xp_per_hour", (int) tracker.xpPerHour(activeSkill, now))
+                .put("session_xp", (int) tracker.sessionXp(activeSkill))
+                .put("seconds_to_level", (int) Math.min(ttl, Integer.MAX_VALUE)));
     }
-    private void post(String url, String json)
+
+    private void sendToggle(boolean en)
     {
-        RequestBody b = RequestBody.create(JSON, json);
-        Request req  = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization","Bearer "+cfg.haToken())
-                .post(b)
-                .build();
-
-        http.newCall(req).enqueue(new okhttp3.Callback()
-        {
-            @Override public void onFailure(okhttp3.Call c, IOException e) { }
-            @Override public void onResponse(okhttp3.Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publishToggle("skill", en);
     }
 }
@@ -1,76 +1,58 @@
 package com.krisped.status;
 
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
-import java.io.IOException;
-import java.util.function.Supplier;
+import java.util.EnumSet;
+import java.util.Set;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.*;
-import net.runelite.api.events.*;
-import net.runelite.client.eventbus.Subscribe;
-import okhttp3.*;
 
 @Slf4j
-public class CurrentWorld
+public class CurrentWorld implements Sensor
 {
-    private static final MediaType JSON =
-            MediaType.get("application/json; charset=utf-8");
+    /* verden endres kun ved login/hop – ingen grunn til å lytte på ticks */
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
 
-    private final Client client;
     private final HomeAssistantConfig cfg;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> userId;
+    private final HaPublisher publisher;
+    private volatile boolean lastShow;
 
     @Inject
     public CurrentWorld(
-            Client client,
             HomeAssistantConfig cfg,
-            OkHttpClient http,
-            Supplier<String> baseUrl,
-            Supplier<String> userId)
+            HaPublisher publisher)
     {
-        this.client  = client;
-        this.cfg     = cfg;
-        this.http    = http;
-        this.baseUrl = baseUrl;
-        this.userId  = userId;
+        this.cfg       = cfg;
+        this.publisher = publisher;
+        this.lastShow  = cfg.showCurrentWorld();
     }
 
-    /* ───────── lifecycle ───────── */
-    public void init(boolean online) { if (online) send(); }
-
-    @Subscribe public void onGameStateChanged(GameStateChanged e)
-    { if (client.getGameState()==GameState.LOGGED_IN) send(); }
+    @Override public String configKey()   { return "showCurrentWorld"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
 
-    @Subscribe public void onPlayerSpawned(PlayerSpawned e) { send(); }
-    @Subscribe public void onGameTick(GameTick e)
-    { if (client.getGameState()==GameState.LOGGED_IN) send(); }
+    /* ───────── lifecycle ───────── */
+    @Override public void init(TickSnapshot s) { if (s.online && lastShow) send(s); }
 
-    private void send()
+    @Override public void onToggle(TickSnapshot s)
     {
-        if (client.getLocalPlayer()==null) return;
-
-        int world = client.getWorld();
-        String json = String.format("{\"world\":%d}", world);
-
-        post(String.format("%s/api/events/kp_runelite_world_%s", baseUrl.get(), userId.get()),
-                json);
+        lastShow = cfg.showCurrentWorld();
+        if (s.online)
+        {
+            publisher.publishToggle("world", lastShow);
+            if (lastShow) send(s);
+        }
     }
 
-    private void post(String url, String json)
+    @Override public void onGameStateChanged(TickSnapshot s) { if (s.loggedIn()) send(s); }
+    @Override public void onPlayerSpawned(TickSnapshot s)    { send(s); }
+    @Override public void onHeartbeat(TickSnapshot s)        { if (s.online) send(s); }
+
+    private void send(TickSnapshot s)
     {
-        RequestBody body = RequestBody.create(JSON, json);
-        Request req = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer "+cfg.haToken())
-                .post(body)
-                .build();
+        if (!s.online) return;
 
-        http.newCall(req).enqueue(new okhttp3.Callback()
-        {
-            @Override public void onFailure(okhttp3.Call c, IOException e) { }
-            @Override public void onResponse(okhttp3.Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publish("world", publisher.payload().put("world", s.world));
     }
 }
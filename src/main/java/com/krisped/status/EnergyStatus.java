@@ -1,115 +1,84 @@
 package com.krisped.status;
 
-import java.io.IOException;
-import java.util.function.Supplier;
-import net.runelite.api.Client;
-import net.runelite.api.GameState;
-import net.runelite.api.events.GameTick;
-import net.runelite.client.events.ConfigChanged;    // ← Correct import
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
+import java.util.EnumSet;
+import java.util.Set;
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
 
-public class EnergyStatus
+public class EnergyStatus implements Sensor
 {
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.GAME_TICK, Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
 
-    private final Client client;
     private final HomeAssistantConfig config;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> user;
-    private Boolean lastShow;
+    private final HaPublisher publisher;
+    private volatile boolean lastShow;
 
-    public EnergyStatus(Client client,
-                        HomeAssistantConfig config,
-                        OkHttpClient http,
-                        Supplier<String> baseUrl,
-                        Supplier<String> user)
+    public EnergyStatus(HomeAssistantConfig config,
+                        HaPublisher publisher)
     {
-        this.client   = client;
-        this.config   = config;
-        this.http     = http;
-        this.baseUrl  = baseUrl;
-        this.user     = user;
-        this.lastShow = config.showEnergy();
+        this.config    = config;
+        this.publisher = publisher;
+        this.lastShow  = config.showEnergy();
     }
 
-    public void init(boolean online)
+    @Override public String configKey()   { return "showEnergy"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
+    @Override
+    public void init(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (s.online && lastShow)
+            sendCurrent(s);
     }
 
-    public void onConfigChanged(ConfigChanged ev, boolean online)
+    @Override
+    public void onToggle(TickSnapshot s)
     {
-        if (!"kp_home_assistant".equals(ev.getGroup()) || !"showEnergy".equals(ev.getKey()))
-            return;
-
         lastShow = config.showEnergy();
-        if (online)
+        if (s.online)
         {
             sendToggle(lastShow);
-            if (lastShow) sendCurrent();
+            if (lastShow) sendCurrent(s);
         }
     }
 
-    public void onStateChange(boolean online)
+    @Override
+    public void onGameStateChanged(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (s.online)
+            sendCurrent(s);
     }
 
-    public void onGameTick(GameTick tick)
+    @Override
+    public void onPlayerSpawned(TickSnapshot s)
     {
-        if (lastShow && isOnline())
-            sendCurrent();
+        if (!s.online) return;
+        sendCurrent(s);
     }
 
-    public void onHeartbeat(boolean online)
+    @Override
+    public void onGameTick(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (s.online)
+            sendCurrent(s);
     }
 
-    private void sendCurrent()
+    @Override
+    public void onHeartbeat(TickSnapshot s)
     {
-        int raw = client.getEnergy();
-        int cur = raw / 100;
-        String url  = String.format("%s/api/events/kp_runelite_energy_%s", baseUrl.get(), user.get());
-        String body = String.format("{\"current\":%d,\"max\":100}", cur);
-        post(url, body);
+        if (s.online)
+            sendCurrent(s);
     }
 
-    private void sendToggle(boolean enabled)
+    private void sendCurrent(TickSnapshot s)
     {
-        String url  = String.format("%s/api/events/kp_runelite_energy_%s", baseUrl.get(), user.get());
-        String body = String.format("{\"enabled\":%b}", enabled);
-        post(url, body);
+        publisher.publish("energy", publisher.payload().put("current", s.energy).put("max", 100));
     }
 
-    private boolean isOnline()
-    {
-        return client.getGameState() == GameState.LOGGED_IN
-                && client.getLocalPlayer() != null;
-    }
-
-    private void post(String url, String json)
+    private void sendToggle(boolean enabled)
     {
-        RequestBody b = RequestBody.create(JSON, json);
-        Request req   = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer " + config.haToken())
-                .post(b)
-                .build();
-
-        http.newCall(req).enqueue(new okhttp3.Callback()
-        {
-            @Override public void onFailure(okhttp3.Call c, IOException e) { }
-            @Override public void onResponse(okhttp3.Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publishToggle("energy", enabled);
     }
 }
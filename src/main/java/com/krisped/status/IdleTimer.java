@@ -1,18 +1,12 @@
 package com.krisped.status;
 
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
-import java.io.IOException;
-import java.time.Instant;
-import java.util.function.Supplier;
+import java.util.EnumSet;
+import java.util.Set;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.Client;
-import net.runelite.api.GameState;
-import net.runelite.api.Player;
 import net.runelite.api.coords.WorldPoint;
-import net.runelite.api.events.GameTick;
-import net.runelite.client.eventbus.Subscribe;
-import okhttp3.*;
 
 /**
  * Sender kun én webhook pr. overgang:
@@ -20,55 +14,56 @@ import okhttp3.*;
  *   { "state":"Not Idle"}  når spilleren blir aktiv igjen
  */
 @Slf4j
-public class IdleTimer
+public class IdleTimer implements Sensor
 {
-    private static final MediaType JSON =
-            MediaType.get("application/json; charset=utf-8");
+    private static final Set<Event> EVENTS = EnumSet.of(Event.GAME_TICK, Event.GAME_STATE_CHANGED);
 
-    private final Client client;
     private final HomeAssistantConfig cfg;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> userId;
+    private final HaPublisher publisher;
+    private final TickTimer timer;
 
     /* interne felter */
-    private boolean enabled;
+    private volatile boolean enabled;
     private boolean idle;
-    private Instant idleStart;
+    private TickTimer.Timeout idleAfter;         // løper mens spilleren står stille
     private WorldPoint lastPos;
 
     /* ───────── ctor ───────── */
     @Inject
     public IdleTimer(
-            Client client,
             HomeAssistantConfig cfg,
-            OkHttpClient http,
-            Supplier<String> baseUrl,
-            Supplier<String> userId)
+            HaPublisher publisher,
+            TickTimer timer)
     {
-        this.client  = client;
-        this.cfg     = cfg;
-        this.http    = http;
-        this.baseUrl = baseUrl;
-        this.userId  = userId;
-        this.enabled = cfg.showIdleStatus();
+        this.cfg       = cfg;
+        this.publisher = publisher;
+        this.timer     = timer;
+        this.enabled   = cfg.showIdleStatus();
     }
 
+    @Override public String configKey()   { return "showIdleStatus"; }
+    @Override public boolean isEnabled()  { return enabled; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
     /* ───────── init / config ───────── */
 
-    public void init(boolean online)
+    @Override
+    public void init(TickSnapshot s)
     {
         idle = false;
-        idleStart = null;
+        cancelIdle();
         lastPos = null;
-        if (online && enabled)
+        if (s.online && enabled)
             sendState("Not Idle");
     }
 
-    public void onConfigChanged(boolean online)
+    @Override
+    public void onToggle(TickSnapshot s)
     {
         enabled = cfg.showIdleStatus();
-        if (online)
+        if (!enabled)
+            cancelIdle();
+        if (s.online)
         {
             sendToggle(enabled);
             if (enabled)
@@ -76,31 +71,37 @@ public class IdleTimer
         }
     }
 
+    /** Login/hop: gjenta av/på og gjeldende tilstand. */
+    @Override
+    public void onGameStateChanged(TickSnapshot s)
+    {
+        if (s.online)
+        {
+            sendToggle(true);
+            sendState(idle ? "Idle" : "Not Idle");
+        }
+    }
+
     /* ───────── RuneLite tick ───────── */
 
-    @Subscribe
-    public void onGameTick(GameTick tick)
+    @Override
+    public void onGameTick(TickSnapshot s)
     {
-        if (!enabled || client.getGameState() != GameState.LOGGED_IN) return;
-
-        Player p = client.getLocalPlayer();
-        if (p == null) return;
+        if (!s.online) return;
 
         /* aktiv dersom animasjon eller posisjon endres */
-        boolean animActive = p.getAnimation() != -1;
-        WorldPoint pos     = p.getWorldLocation();
+        boolean animActive = s.animation != -1;
+        WorldPoint pos     = s.location;
         boolean moved      = lastPos != null && !lastPos.equals(pos);
         lastPos = pos;
 
         boolean active = animActive || moved;
-        int threshold  = cfg.idleThresholdSeconds();
 
         if (idle)
         {
             if (active)
             {
                 idle = false;
-                idleStart = null;
                 sendState("Not Idle");
             }
         }
@@ -108,55 +109,39 @@ public class IdleTimer
         {
             if (active)
             {
-                idleStart = null;           // fortsatt aktiv
+                cancelIdle();               // fortsatt aktiv
             }
-            else
+            else if (idleAfter == null || !idleAfter.isPending())
             {
-                if (idleStart == null)
-                    idleStart = Instant.now();
-
-                long diff = Instant.now().getEpochSecond() - idleStart.getEpochSecond();
-                if (diff >= threshold)
-                {
-                    idle = true;
-                    sendState("Idle");
-                }
+                int threshold = cfg.idleThresholdSeconds();
+                idleAfter = timer.schedule(TickTimer.ticks(threshold * 1000L), this::becomeIdle);
             }
         }
     }
 
-    /* ───────── HTTP helpers ───────── */
+    private void becomeIdle()
+    {
+        if (!enabled || idle) return;
+        idle = true;
+        sendState("Idle");
+    }
 
-    private void sendState(String state)
+    private void cancelIdle()
     {
-        if (!enabled) return;
-        post(
-                String.format("%s/api/events/kp_runelite_idle_%s", baseUrl.get(), userId.get()),
-                String.format("{\"state\":\"%s\"}", state)
-        );
+        if (idleAfter != null)
+            idleAfter.cancel();
     }
 
-    private void sendToggle(boolean on)
+    /* ───────── sending ───────── */
+
+    private void sendState(String state)
     {
-        post(
-                String.format("%s/api/events/kp_runelite_idle_%s", baseUrl.get(), userId.get()),
-                String.format("{\"enabled\":%b}", on)
-        );
+        if (!enabled) return;
+        publisher.publishTransition("idle", publisher.payload().put("state", state));
     }
 
-    private void post(String url, String json)
+    private void sendToggle(boolean on)
     {
-        RequestBody body = RequestBody.create(JSON, json);
-        Request req = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer " + cfg.haToken())
-                .post(body)
-                .build();
-
-        http.newCall(req).enqueue(new Callback()
-        {
-            @Override public void onFailure(Call c, IOException e) { }
-            @Override public void onResponse(Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publishToggle("idle", on);
     }
 }
@@ -0,0 +1,118 @@
+package com.krisped.status;
+
+import com.krisped.HaPublisher;
+import com.krisped.HomeAssistantConfig;
+import com.krisped.JsonPayload;
+import java.util.EnumSet;
+import java.util.Set;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * {"name":…, "type":"bank"|…, "distance":n, "nearby":bool} på sensoren «poi».
+ * Nærmeste punkt slås kun opp i {@link PoiIndex} når spilleren har flyttet seg.
+ */
+public class NearestPoi implements Sensor
+{
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.GAME_TICK, Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
+
+    private final HomeAssistantConfig cfg;
+    private final HaPublisher publisher;
+    private final PoiIndex pois;
+    private volatile boolean lastShow;
+
+    /* siste oppslag */
+    private WorldPoint lastPoint;
+    private int nearest = -1;
+
+    public NearestPoi(
+            HomeAssistantConfig cfg,
+            HaPublisher publisher,
+            PoiIndex pois)
+    {
+        this.cfg       = cfg;
+        this.publisher = publisher;
+        this.pois      = pois;
+        this.lastShow  = cfg.showNearestPoi();
+    }
+
+    @Override public String configKey()   { return "showNearestPoi"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
+    /* ─────────── Lifecycle ─────────── */
+
+    @Override
+    public void init(TickSnapshot s)
+    {
+        if (s.online && lastShow)
+            sendNearest(s);
+    }
+
+    @Override
+    public void onToggle(TickSnapshot s)
+    {
+        lastShow = cfg.showNearestPoi();
+        if (s.online)
+        {
+            publisher.publishToggle("poi", lastShow);
+            if (lastShow) sendNearest(s);
+        }
+    }
+
+    @Override
+    public void onGameStateChanged(TickSnapshot s)
+    {
+        if (s.loggedIn())
+            sendNearest(s);
+    }
+
+    @Override
+    public void onPlayerSpawned(TickSnapshot s)
+    {
+        sendNearest(s);
+    }
+
+    @Override
+    public void onGameTick(TickSnapshot s)
+    {
+        if (s.loggedIn() && s.location != null && !s.location.equals(lastPoint))
+            sendNearest(s);
+    }
+
+    @Override
+    public void onHeartbeat(TickSnapshot s)
+    {
+        if (s.online)
+            sendNearest(s);             // fanger også opp endret radius
+    }
+
+    /* ─────────── Sending ─────────── */
+
+    private void sendNearest(TickSnapshot s)
+    {
+        WorldPoint wp = s.location;
+        if (wp == null) return;
+
+        if (!wp.equals(lastPoint))
+        {
+            nearest   = pois.nearest(wp.getX(), wp.getY(), wp.getPlane());
+            lastPoint = wp;
+        }
+
+        JsonPayload p = publisher.payload();
+        if (nearest < 0)
+        {
+            p.put("name", (String) null).put("type", (String) null).put("nearby", false);
+        }
+        else
+        {
+            int dist = pois.distance(nearest, wp.getX(), wp.getY());
+            p.put("name", pois.name(nearest))
+             .put("type", pois.type(nearest))
+             .put("distance", dist)
+             .put("nearby", dist <= cfg.poiRadius());
+        }
+        publisher.publish("poi", p);
+    }
+}
@@ -0,0 +1,38 @@
+package com.krisped.status;
+
+import com.krisped.HaPublisher;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * {"status":"Online"|"Offline"} på kp_runelite_update_{user}. Alltid på –
+ * ingen config‑nøkkel; «Offline» ved stopp sendes av pluginen selv.
+ */
+public class OnlineStatus implements Sensor
+{
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
+
+    private final HaPublisher publisher;
+
+    public OnlineStatus(HaPublisher publisher)
+    {
+        this.publisher = publisher;
+    }
+
+    @Override public String configKey()   { return null; }
+    @Override public boolean isEnabled()  { return true; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
+    @Override public void init(TickSnapshot s)     { if (s.online) send("Online"); }
+    @Override public void onToggle(TickSnapshot s) { }
+
+    @Override public void onGameStateChanged(TickSnapshot s) { send(s.online ? "Online" : "Offline"); }
+    @Override public void onPlayerSpawned(TickSnapshot s)    { if (s.online) send("Online"); }
+    @Override public void onHeartbeat(TickSnapshot s)        { send(s.online ? "Online" : "Offline"); }
+
+    private void send(String status)
+    {
+        publisher.publishTransition("update", publisher.payload().put("status", status));
+    }
+}
@@ -0,0 +1,219 @@
+package com.krisped.status;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interessepunkt (bank, alter, teleport, fairy ring …) i et 2‑d KD‑tre pr.
+ * plan, lagret implisitt i parallelle arrayer (median i midten av hvert
+ * delintervall). Nærmeste punkt finnes i O(log n) med tile‑avstand
+ * (Chebyshev, som i spillet) – ingen lineær skanning.
+ * <p>
+ * Leses fra {@code pois.txt} i pluginen pluss en valgfri brukerfil med samme
+ * format (legges til). Én linje pr. punkt: {@code bank | Grand Exchange = 3164,3489[,plan]}.
+ * {@link #nearest} er ikke trådsikker – brukes kun fra sensortråden.
+ */
+@Slf4j
+public final class PoiIndex
+{
+    static final String RESOURCE = "pois.txt";
+    static final int PLANES = 4;
+
+    private static final class Poi
+    {
+        final String type, name;
+        final int    x, y, plane;
+
+        Poi(String type, String name, int x, int y, int plane)
+        {
+            this.type  = type;
+            this.name  = name;
+            this.x     = x;
+            this.y     = y;
+            this.plane = plane;
+        }
+    }
+
+    private final int[]    xs, ys;
+    private final String[] types, names;
+    private final int[]    planeStart = new int[PLANES + 1];  // tre for plan p = [start[p], start[p+1])
+
+    /* søketilstand */
+    private int best, bestDist;
+
+    private PoiIndex(List<Poi> pois)
+    {
+        int n = pois.size();
+        xs = new int[n];
+        ys = new int[n];
+        types = new String[n];
+        names = new String[n];
+
+        pois.sort(Comparator.comparingInt(p -> p.plane));
+        int i = 0;
+        for (int p = 0; p < PLANES; p++)
+        {
+            planeStart[p] = i;
+            int end = i;
+            while (end < n && pois.get(end).plane == p)
+                end++;
+            build(pois, i, end, 0);
+            i = end;
+        }
+        planeStart[PLANES] = n;
+
+        for (int k = 0; k < n; k++)
+        {
+            Poi p = pois.get(k);
+            xs[k]    = p.x;
+            ys[k]    = p.y;
+            types[k] = p.type;
+            names[k] = p.name;
+        }
+    }
+
+    /** Innebygd tabell + {@code extra} om den finnes. */
+    public static PoiIndex load(Path extra)
+    {
+        List<Poi> list = new ArrayList<>();
+
+        try (InputStream in = PoiIndex.class.getResourceAsStream(RESOURCE))
+        {
+            if (in == null)
+                log.warn("Fant ikke {} i pluginen", RESOURCE);
+            else
+                parse(new InputStreamReader(in, StandardCharsets.UTF_8), RESOURCE, list);
+        }
+        catch (IOException ex)
+        {
+            log.warn("Kunne ikke lese {}", RESOURCE, ex);
+        }
+
+        if (extra != null && Files.isRegularFile(extra))
+        {
+            try (Reader r = Files.newBufferedReader(extra, StandardCharsets.UTF_8))
+            {
+                parse(r, extra.toString(), list);
+            }
+            catch (IOException ex)
+            {
+                log.warn("Kunne ikke lese {}", extra, ex);
+            }
+        }
+        return new PoiIndex(list);
+    }
+
+    public int size()
+    {
+        return xs.length;
+    }
+
+    /** Indeks for nærmeste punkt på samme plan, eller -1 når planet er tomt. */
+    public int nearest(int x, int y, int plane)
+    {
+        best = -1;
+        bestDist = Integer.MAX_VALUE;
+        if (plane >= 0 && plane < PLANES)
+            search(planeStart[plane], planeStart[plane + 1], 0, x, y);
+        return best;
+    }
+
+    public String name(int i)     { return names[i]; }
+    public String type(int i)     { return types[i]; }
+
+    /** Tile‑avstand (Chebyshev) fra punkt {@code i}. */
+    public int distance(int i, int x, int y)
+    {
+        return Math.max(Math.abs(xs[i] - x), Math.abs(ys[i] - y));
+    }
+
+    /* ───────── intern ───────── */
+
+    /* sorterer [lo,hi) på aksen og gjør det samme rekursivt på hver side av medianen */
+    private static void build(List<Poi> pois, int lo, int hi, int depth)
+    {
+        if (hi - lo < 2)
+            return;
+        List<Poi> range = pois.subList(lo, hi);
+        range.sort((depth & 1) == 0 ? Comparator.comparingInt(p -> p.x) : Comparator.comparingInt(p -> p.y));
+        int mid = (lo + hi) >>> 1;
+        build(pois, lo, mid, depth + 1);
+        build(pois, mid + 1, hi, depth + 1);
+    }
+
+    private void search(int lo, int hi, int depth, int x, int y)
+    {
+        if (lo >= hi)
+            return;
+        int mid = (lo + hi) >>> 1;
+
+        int d = distance(mid, x, y);
+        if (d < bestDist)
+        {
+            bestDist = d;
+            best     = mid;
+        }
+
+        int diff = (depth & 1) == 0 ? x - xs[mid] : y - ys[mid];
+        if (diff < 0)
+        {
+            search(lo, mid, depth + 1, x, y);
+            if (-diff < bestDist)                         // kan den andre siden være nærmere?
+                search(mid + 1, hi, depth + 1, x, y);
+        }
+        else
+        {
+            search(mid + 1, hi, depth + 1, x, y);
+            if (diff < bestDist)
+                search(lo, mid, depth + 1, x, y);
+        }
+    }
+
+    private static void parse(Reader reader, String source, List<Poi> out) throws IOException
+    {
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null)
+        {
+            lineNo++;
+            int hash = line.indexOf('#');
+            if (hash >= 0)
+                line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+
+            int bar = line.indexOf('|');
+            int eq  = line.lastIndexOf('=');
+            if (bar <= 0 || eq < bar)
+            {
+                log.debug("{}:{} forventet «type | Navn = x,y[,plan]»", source, lineNo);
+                continue;
+            }
+            try
+            {
+                String[] c = line.substring(eq + 1).split(",");
+                int plane = c.length > 2 ? Integer.parseInt(c[2].trim()) : 0;
+                if (c.length < 2 || plane < 0 || plane >= PLANES)
+                    throw new NumberFormatException(line.substring(eq + 1).trim());
+                out.add(new Poi(line.substring(0, bar).trim(), line.substring(bar + 1, eq).trim(),
+                        Integer.parseInt(c[0].trim()), Integer.parseInt(c[1].trim()), plane));
+            }
+            catch (NumberFormatException ex)
+            {
+                log.debug("{}:{} ugyldige koordinater «{}»", source, lineNo, ex.getMessage());
+            }
+        }
+    }
+}
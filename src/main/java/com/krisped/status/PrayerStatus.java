@@ -1,109 +1,84 @@
 package com.krisped.status;
 
-import java.io.IOException;
-import java.util.function.Supplier;
-import net.runelite.api.Client;
+import java.util.EnumSet;
+import java.util.Set;
 import net.runelite.api.Skill;
-import net.runelite.api.events.StatChanged;
-import net.runelite.client.events.ConfigChanged;    // ← Correct import
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
 
-public class PrayerStatus
+public class PrayerStatus implements Sensor
 {
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.STAT_CHANGED, Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
 
-    private final Client client;
     private final HomeAssistantConfig config;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> user;
-    private Boolean lastShow;
+    private final HaPublisher publisher;
+    private volatile boolean lastShow;
 
-    public PrayerStatus(Client client,
-                        HomeAssistantConfig config,
-                        OkHttpClient http,
-                        Supplier<String> baseUrl,
-                        Supplier<String> user)
+    public PrayerStatus(HomeAssistantConfig config,
+                        HaPublisher publisher)
     {
-        this.client   = client;
-        this.config   = config;
-        this.http     = http;
-        this.baseUrl  = baseUrl;
-        this.user     = user;
-        this.lastShow = config.showPrayer();
+        this.config    = config;
+        this.publisher = publisher;
+        this.lastShow  = config.showPrayer();
     }
 
-    public void init(boolean online)
+    @Override public String configKey()   { return "showPrayer"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
+    @Override
+    public void init(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (s.online && lastShow)
+            send(s.prayer, s.prayerMax);
     }
 
-    public void onConfigChanged(ConfigChanged ev, boolean online)
+    @Override
+    public void onToggle(TickSnapshot s)
     {
-        if (!"kp_home_assistant".equals(ev.getGroup()) || !"showPrayer".equals(ev.getKey()))
-            return;
-
         lastShow = config.showPrayer();
-        if (online)
+        if (s.online)
         {
             sendToggle(lastShow);
-            if (lastShow) sendCurrent();
+            if (lastShow) send(s.prayer, s.prayerMax);
         }
     }
 
-    public void onStateChange(boolean online)
+    @Override
+    public void onGameStateChanged(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (s.online)
+            send(s.prayer, s.prayerMax);
     }
 
-    public void onStatChanged(StatChanged ev)
+    @Override
+    public void onPlayerSpawned(TickSnapshot s)
     {
-        if (lastShow && ev.getSkill() == Skill.PRAYER)
-            sendCurrent();
+        send(s.prayer, s.prayerMax);
     }
 
-    public void onHeartbeat(boolean online)
+    @Override
+    public void onStatsChanged(long skills, TickSnapshot before, TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (Sensor.changed(skills, Skill.PRAYER))
+            send(s.prayer, s.prayerMax);
     }
 
-    private void sendCurrent()
+    @Override
+    public void onHeartbeat(TickSnapshot s)
     {
-        int cur = client.getBoostedSkillLevel(Skill.PRAYER);
-        int max = client.getRealSkillLevel(Skill.PRAYER);
-        String url  = String.format("%s/api/events/kp_runelite_prayer_%s", baseUrl.get(), user.get());
-        String body = String.format("{\"current\":%d,\"max\":%d}", cur, max);
-        post(url, body);
+        if (s.online)
+            send(s.prayer, s.prayerMax);
     }
 
-    private void sendToggle(boolean enabled)
+    private void send(int cur, int max)
     {
-        String url  = String.format("%s/api/events/kp_runelite_prayer_%s", baseUrl.get(), user.get());
-        String body = String.format("{\"enabled\":%b}", enabled);
-        post(url, body);
+        publisher.publish("prayer", publisher.payload().put("current", cur).put("max", max));
     }
 
-    private void post(String url, String json)
+    private void sendToggle(boolean enabled)
     {
-        RequestBody b = RequestBody.create(JSON, json);
-        Request req   = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer " + config.haToken())
-                .post(b)
-                .build();
-
-        http.newCall(req).enqueue(new okhttp3.Callback()
-        {
-            @Override public void onFailure(okhttp3.Call c, IOException e) { }
-            @Override public void onResponse(okhttp3.Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publishToggle("prayer", enabled);
     }
 }
@@ -0,0 +1,133 @@
+package com.krisped.status;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Region‑ID → stedsnavn, lest fra {@code regions.txt} i pluginen og en valgfri
+ * brukerfil med samme format (brukerfila vinner). Lagres som sortert int[] +
+ * String[] og slås opp med binærsøk – ingen boksing, ingen HashMap pr. oppslag.
+ * <p>
+ * Format, én linje pr. sted: {@code 12850 = Lumbridge} eller
+ * {@code 12593, 12849 = Lumbridge Swamp}. Tomme linjer og {@code #} ignoreres.
+ */
+@Slf4j
+public final class RegionIndex
+{
+    static final String RESOURCE = "regions.txt";
+
+    private final int[]    ids;
+    private final String[] names;
+
+    private RegionIndex(int[] ids, String[] names)
+    {
+        this.ids   = ids;
+        this.names = names;
+    }
+
+    /** Innebygd tabell + {@code override} om den finnes. */
+    public static RegionIndex load(Path override)
+    {
+        TreeMap<Integer, String> map = new TreeMap<>();
+        Map<String, String> pool = new HashMap<>();
+
+        try (InputStream in = RegionIndex.class.getResourceAsStream(RESOURCE))
+        {
+            if (in == null)
+                log.warn("Fant ikke {} i pluginen", RESOURCE);
+            else
+                parse(new InputStreamReader(in, StandardCharsets.UTF_8), RESOURCE, map, pool);
+        }
+        catch (IOException ex)
+        {
+            log.warn("Kunne ikke lese {}", RESOURCE, ex);
+        }
+
+        if (override != null && Files.isRegularFile(override))
+        {
+            try (Reader r = Files.newBufferedReader(override, StandardCharsets.UTF_8))
+            {
+                parse(r, override.toString(), map, pool);
+            }
+            catch (IOException ex)
+            {
+                log.warn("Kunne ikke lese {}", override, ex);
+            }
+        }
+
+        int[]    ids   = new int[map.size()];
+        String[] names = new String[map.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> e : map.entrySet())
+        {
+            ids[i]   = e.getKey();
+            names[i] = e.getValue();
+            i++;
+        }
+        return new RegionIndex(ids, names);
+    }
+
+    /** Navnet på regionen, eller null når den ikke er kartlagt. */
+    public String name(int regionId)
+    {
+        int i = Arrays.binarySearch(ids, regionId);
+        return i >= 0 ? names[i] : null;
+    }
+
+    public int size()
+    {
+        return ids.length;
+    }
+
+    /* ───────── intern ───────── */
+
+    private static void parse(Reader reader, String source,
+                              TreeMap<Integer, String> map, Map<String, String> pool) throws IOException
+    {
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null)
+        {
+            lineNo++;
+            int hash = line.indexOf('#');
+            if (hash >= 0)
+                line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+
+            int eq = line.indexOf('=');
+            String name = eq < 0 ? "" : line.substring(eq + 1).trim();
+            if (name.isEmpty())
+            {
+                log.debug("{}:{} mangler navn – hoppet over", source, lineNo);
+                continue;
+            }
+            name = pool.computeIfAbsent(name, n -> n);    // ett String‑objekt pr. navn
+
+            for (String id : line.substring(0, eq).split(","))
+            {
+                try
+                {
+                    map.put(Integer.parseInt(id.trim()), name);
+                }
+                catch (NumberFormatException ex)
+                {
+                    log.debug("{}:{} ugyldig region‑ID «{}»", source, lineNo, id.trim());
+                }
+            }
+        }
+    }
+}
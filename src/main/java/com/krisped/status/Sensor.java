@@ -0,0 +1,54 @@
+package com.krisped.status;
+
+import java.util.Set;
+import net.runelite.api.Skill;
+
+/**
+ * Én HA‑sensor (helse, idle, lokasjon …). Sensoren oppgir selv hvilke
+ * hendelser den trenger; {@link SensorRegistry} gir hver hendelse kun til
+ * sensorer som er slått på og har den i {@link #events()} – nøyaktig én gang.
+ * Ingen sensor skal registreres på EventBus, og ingen leser Client selv:
+ * alt kommer fra {@link TickSnapshot}.
+ */
+public interface Sensor
+{
+    enum Event
+    {
+        GAME_TICK,
+        STAT_CHANGED,
+        GAME_STATE_CHANGED,
+        PLAYER_SPAWNED,
+        HEARTBEAT
+    }
+
+    /** Config‑nøkkelen som slår sensoren av/på (showHealth …); null = alltid på. */
+    String configKey();
+
+    /** Gjeldende av/på‑verdi, oppdatert i {@link #onToggle}. */
+    boolean isEnabled();
+
+    /** Hendelsene sensoren vil ha mens den er slått på. */
+    Set<Event> events();
+
+    /** Ved oppstart av plugin – kalles for alle sensorer, også avslåtte. */
+    void init(TickSnapshot s);
+
+    /** Brukeren har endret {@link #configKey()}. */
+    void onToggle(TickSnapshot s);
+
+    default void onGameTick(TickSnapshot s) { }
+    /**
+     * Alle StatChanged i én tick samlet til ett kall, før {@link #onGameTick}.
+     * {@code skills} er en bitmaske over {@link Skill#ordinal()}; {@code before}
+     * er forrige snapshot og {@code s} verdiene etter endringene.
+     */
+    default void onStatsChanged(long skills, TickSnapshot before, TickSnapshot s) { }
+    default void onGameStateChanged(TickSnapshot s) { }
+    default void onPlayerSpawned(TickSnapshot s) { }
+    default void onHeartbeat(TickSnapshot s) { }
+
+    static boolean changed(long skills, Skill skill)
+    {
+        return (skills & 1L << skill.ordinal()) != 0;
+    }
+}
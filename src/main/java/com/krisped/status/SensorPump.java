@@ -0,0 +1,168 @@
+package com.krisped.status;
+
+import com.krisped.HaPublisher;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Flytter all sensorlogikk, JSON‑skriving og endringsdeteksjon bort fra
+ * klienttråden. Klienttråden legger kun (hendelse, {@link TickSnapshot}) i en
+ * låsfri {@link SpscRing} og vekker tråden «kp-ha-sensors», som kjører
+ * {@link SensorRegistry} og leverer til {@link HaPublisher}.
+ * Arbeid fra andre tråder (heartbeat, config) går via {@link #execute}.
+ */
+@Slf4j
+public class SensorPump
+{
+    private static final int  RING_SIZE = 1024;
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private enum Kind { TICK, STATE, SPAWN }
+
+    private static final class Signal
+    {
+        final Kind         kind;
+        final TickSnapshot snap;
+        final long         stats;              // StatChanged i ticken, bitmaske over Skill.ordinal()
+
+        Signal(Kind kind, TickSnapshot snap, long stats)
+        {
+            this.kind  = kind;
+            this.snap  = snap;
+            this.stats = stats;
+        }
+    }
+
+    private final SensorRegistry sensors;
+    private final HaPublisher publisher;
+    private final TickTimer timer;
+    private final SpscRing<Signal> ring = new SpscRing<>(RING_SIZE);
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong overflow = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private TickSnapshot last;                 // forrige snapshot, kun sensortråden
+
+    public SensorPump(SensorRegistry sensors, HaPublisher publisher, TickTimer timer)
+    {
+        this.sensors   = sensors;
+        this.publisher = publisher;
+        this.timer     = timer;
+        this.thread    = new Thread(this::run, "kp-ha-sensors");
+        this.thread.setDaemon(true);
+    }
+
+    public void start()
+    {
+        thread.start();
+    }
+
+    /** Kjører det som allerede er levert, og stopper tråden; venter til {@code deadlineNanos} (System.nanoTime). */
+    public void stop(long deadlineNanos)
+    {
+        running = false;
+        LockSupport.unpark(thread);
+        try
+        {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            thread.join(Math.max(1, left));
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ───────── klienttråden (eneste produsent på ringen) ───────── */
+
+    /** Slutten av en tick; {@code stats} er alle ferdigheter med StatChanged siden forrige. */
+    public void tick(TickSnapshot s, long stats)  { offer(new Signal(Kind.TICK, s, stats)); }
+    public void gameStateChanged(TickSnapshot s)  { offer(new Signal(Kind.STATE, s, 0)); }
+    public void playerSpawned(TickSnapshot s)     { offer(new Signal(Kind.SPAWN, s, 0)); }
+
+    /* ───────── andre tråder ───────── */
+
+    /** Kjører {@code task} på sensortråden (heartbeat, config, oppstart). */
+    public void execute(Runnable task)
+    {
+        tasks.add(task);
+        LockSupport.unpark(thread);
+    }
+
+    /* ───────── intern ───────── */
+
+    private void offer(Signal s)
+    {
+        if (!ring.offer(s) && overflow.incrementAndGet() % 100 == 1)
+            log.debug("Sensor‑ring full – hendelse forkastet ({} totalt)", overflow.get());
+        LockSupport.unpark(thread);
+    }
+
+    private void run()
+    {
+        while (true)
+        {
+            boolean worked = false;
+
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                worked = true;
+                safely(task);
+            }
+
+            Signal s;
+            while ((s = ring.poll()) != null)
+            {
+                worked = true;
+                Signal sig = s;
+                safely(() -> dispatch(sig));
+            }
+
+            if (!running && ring.isEmpty() && tasks.isEmpty())
+                return;
+            if (!worked)
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+        }
+    }
+
+    private void dispatch(Signal s)
+    {
+        switch (s.kind)
+        {
+            case TICK:
+                if (s.stats != 0)                // hele StatChanged‑skuren som ett kall
+                    sensors.onStatsChanged(s.stats, last != null ? last : s.snap, s.snap);
+                sensors.onGameTick(s.snap);
+                timer.tick();                    // frister etter at sensorene har sett ticken
+                publisher.flushBatch();          // én batch pr. tick
+                break;
+            case STATE:
+                sensors.onGameStateChanged(s.snap);
+                publisher.flushBatch();
+                break;
+            case SPAWN:
+                sensors.onPlayerSpawned(s.snap);
+                publisher.flushBatch();
+                break;
+        }
+        last = s.snap;
+    }
+
+    /* en feil i én sensor skal ikke ta ned tråden */
+    private static void safely(Runnable r)
+    {
+        try
+        {
+            r.run();
+        }
+        catch (RuntimeException ex)
+        {
+            log.warn("Sensorfeil", ex);
+        }
+    }
+}
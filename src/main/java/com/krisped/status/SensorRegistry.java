@@ -0,0 +1,97 @@
+package com.krisped.status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alle sensorer, og for hver {@link Sensor.Event} en ferdig tabell over de
+ * påslåtte sensorene som vil ha den. Tabellen bygges på nytt kun når en
+ * sensor slås av/på, så utsending pr. tick er en ren array‑løkke.
+ * All utsending skjer på sensortråden i {@link SensorPump}; tabellen
+ * byttes likevel ut i sin helhet (volatile) så den kan leses fra hvor som helst.
+ */
+public class SensorRegistry
+{
+    private static final Sensor.Event[] EVENTS = Sensor.Event.values();
+
+    private final List<Sensor> all = new ArrayList<>();
+    private final Map<String, Sensor> byKey = new HashMap<>();
+    private volatile Sensor[][] active = new Sensor[EVENTS.length][0];
+
+    public synchronized void register(Sensor sensor)
+    {
+        all.add(sensor);
+        if (sensor.configKey() != null)
+            byKey.put(sensor.configKey(), sensor);
+        rebuild();
+    }
+
+    /* ───────── livssyklus ───────── */
+
+    public void init(TickSnapshot snap)
+    {
+        for (Sensor s : all)
+            s.init(snap);
+    }
+
+    /** Tar seg av av/på for en sensor; false når nøkkelen ikke tilhører noen sensor. */
+    public synchronized boolean onConfigChanged(String key, TickSnapshot snap)
+    {
+        Sensor s = byKey.get(key);
+        if (s == null)
+            return false;
+        s.onToggle(snap);
+        rebuild();
+        return true;
+    }
+
+    /* ───────── utsending ───────── */
+
+    public void onGameTick(TickSnapshot snap)
+    {
+        for (Sensor s : active[Sensor.Event.GAME_TICK.ordinal()])
+            s.onGameTick(snap);
+    }
+
+    public void onStatsChanged(long skills, TickSnapshot before, TickSnapshot snap)
+    {
+        for (Sensor s : active[Sensor.Event.STAT_CHANGED.ordinal()])
+            s.onStatsChanged(skills, before, snap);
+    }
+
+    public void onGameStateChanged(TickSnapshot snap)
+    {
+        for (Sensor s : active[Sensor.Event.GAME_STATE_CHANGED.ordinal()])
+            s.onGameStateChanged(snap);
+    }
+
+    public void onPlayerSpawned(TickSnapshot snap)
+    {
+        for (Sensor s : active[Sensor.Event.PLAYER_SPAWNED.ordinal()])
+            s.onPlayerSpawned(snap);
+    }
+
+    public void onHeartbeat(TickSnapshot snap)
+    {
+        for (Sensor s : active[Sensor.Event.HEARTBEAT.ordinal()])
+            s.onHeartbeat(snap);
+    }
+
+    /* ───────── intern ───────── */
+
+    private void rebuild()
+    {
+        Sensor[][] next = new Sensor[EVENTS.length][];
+        for (Sensor.Event e : EVENTS)
+        {
+            List<Sensor> list = new ArrayList<>();
+            for (Sensor s : all)
+                if (s.isEnabled() && s.events().contains(e))
+                    list.add(s);
+            next[e.ordinal()] = list.toArray(new Sensor[0]);
+        }
+        active = next;
+    }
+}
@@ -1,127 +1,93 @@
 package com.krisped.status;
 
+import com.krisped.HaPublisher;
 import com.krisped.HomeAssistantConfig;
-import java.io.IOException;
-import java.util.function.Supplier;
+import java.util.EnumSet;
+import java.util.Set;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.Client;
-import net.runelite.api.GameState;
-import net.runelite.api.VarPlayer;
-import net.runelite.api.events.GameTick;
-import net.runelite.client.events.ConfigChanged;
-import okhttp3.*;
 
 @Slf4j
-public class SpecialAttackStatus
+public class SpecialAttackStatus implements Sensor
 {
-    private static final MediaType JSON =
-            MediaType.get("application/json; charset=utf-8");
+    private static final Set<Event> EVENTS = EnumSet.of(
+            Event.GAME_TICK, Event.GAME_STATE_CHANGED, Event.PLAYER_SPAWNED, Event.HEARTBEAT);
 
-    private final Client client;
     private final HomeAssistantConfig cfg;
-    private final OkHttpClient http;
-    private final Supplier<String> baseUrl;
-    private final Supplier<String> user;
-    private boolean lastShow;
+    private final HaPublisher publisher;
+    private volatile boolean lastShow;
 
     @Inject
     public SpecialAttackStatus(
-            Client client,
             HomeAssistantConfig cfg,
-            OkHttpClient http,
-            Supplier<String> baseUrl,
-            Supplier<String> user)
+            HaPublisher publisher)
     {
-        this.client   = client;
-        this.cfg      = cfg;
-        this.http     = http;
-        this.baseUrl  = baseUrl;
-        this.user     = user;
-        this.lastShow = cfg.showSpecialAttack();
+        this.cfg       = cfg;
+        this.publisher = publisher;
+        this.lastShow  = cfg.showSpecialAttack();
     }
 
+    @Override public String configKey()   { return "showSpecialAttack"; }
+    @Override public boolean isEnabled()  { return lastShow; }
+    @Override public Set<Event> events()  { return EVENTS; }
+
     /* ─────────── lifecycle ─────────── */
 
-    public void init(boolean online)
+    @Override
+    public void init(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (s.online && lastShow)
+            sendCurrent(s);
     }
 
-    public void onConfigChanged(ConfigChanged ev, boolean online)
+    @Override
+    public void onToggle(TickSnapshot s)
     {
-        if (!"kp_home_assistant".equals(ev.getGroup())
-                || !"showSpecialAttack".equals(ev.getKey()))
-            return;
-
         lastShow = cfg.showSpecialAttack();
-        if (online)
+        if (s.online)
         {
             sendToggle(lastShow);
-            if (lastShow) sendCurrent();
+            if (lastShow) sendCurrent(s);
         }
     }
 
-    public void onStateChange(boolean online)
-    {
-        if (online && lastShow)
-            sendCurrent();
-    }
-
-    public void onGameTick(GameTick tick)
+    @Override
+    public void onGameStateChanged(TickSnapshot s)
     {
-        if (lastShow && isOnline())
-            sendCurrent();
+        if (s.online)
+            sendCurrent(s);
     }
 
-    public void onHeartbeat(boolean online)
+    @Override
+    public void onPlayerSpawned(TickSnapshot s)
     {
-        if (online && lastShow)
-            sendCurrent();
+        if (!s.online) return;
+        sendCurrent(s);
     }
 
-    /* ─────────── sending ─────────── */
-
-    private void sendCurrent()
+    @Override
+    public void onGameTick(TickSnapshot s)
     {
-        int raw = client.getVarpValue(VarPlayer.SPECIAL_ATTACK_PERCENT); // 0-1000
-        int pct = raw / 10;
-        String url  = String.format("%s/api/events/kp_runelite_special_%s",
-                baseUrl.get(), user.get());
-        String body = String.format("{\"current\":%d,\"max\":100}", pct);
-        post(url, body);
+        if (s.online)
+            sendCurrent(s);
     }
 
-    private void sendToggle(boolean enabled)
+    @Override
+    public void onHeartbeat(TickSnapshot s)
     {
-        String url  = String.format("%s/api/events/kp_runelite_special_%s",
-                baseUrl.get(), user.get());
-        String body = String.format("{\"enabled\":%b}", enabled);
-        post(url, body);
+        if (s.online)
+            sendCurrent(s);
     }
 
-    /* ─────────── helpers ─────────── */
+    /* ─────────── sending ─────────── */
 
-    private boolean isOnline()
+    private void sendCurrent(TickSnapshot s)
     {
-        return client.getGameState() == GameState.LOGGED_IN
-                && client.getLocalPlayer() != null;
+        publisher.publish("special", publisher.payload().put("current", s.special).put("max", 100));
     }
 
-    private void post(String url, String json)
+    private void sendToggle(boolean enabled)
     {
-        RequestBody body = RequestBody.create(JSON, json);
-        Request req = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer " + cfg.haToken())
-                .post(body)
-                .build();
-
-        http.newCall(req).enqueue(new okhttp3.Callback()
-        {
-            @Override public void onFailure(okhttp3.Call c, IOException e) { /* ignore */ }
-            @Override public void onResponse(okhttp3.Call c, Response r) throws IOException { r.close(); }
-        });
+        publisher.publishToggle("special", enabled);
     }
 }
@@ -0,0 +1,59 @@
+package com.krisped.status;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Låsfri ringbuffer for nøyaktig én produsent og én konsument.
+ * offer/poll bruker kun volatile‑lesing og lazySet (release) – ingen låser,
+ * ingen CAS, så produsenten (klienttråden) blokkerer aldri. Full ring gir
+ * false i stedet for å vente.
+ */
+final class SpscRing<T>
+{
+    private final Object[] slots;
+    private final int      mask;
+    private final AtomicLong head = new AtomicLong();  // neste som leses (konsument)
+    private final AtomicLong tail = new AtomicLong();  // neste som skrives (produsent)
+    private long headCache;                            // produsentens sist leste head
+
+    SpscRing(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;  // neste toerpotens
+        slots = new Object[size];
+        mask  = size - 1;
+    }
+
+    /** Kun produsent. */
+    boolean offer(T value)
+    {
+        long t = tail.get();
+        if (t - headCache >= slots.length)
+        {
+            headCache = head.get();
+            if (t - headCache >= slots.length)
+                return false;
+        }
+        slots[(int) t & mask] = value;
+        tail.lazySet(t + 1);                               // publiserer sloten
+        return true;
+    }
+
+    /** Kun konsument; null når tom. */
+    @SuppressWarnings("unchecked")
+    T poll()
+    {
+        long h = head.get();
+        if (h >= tail.get())
+            return null;
+        int i = (int) h & mask;
+        T value = (T) slots[i];
+        slots[i] = null;
+        head.lazySet(h + 1);                               // frigir sloten
+        return value;
+    }
+
+    boolean isEmpty()
+    {
+        return head.get() >= tail.get();
+    }
+}
@@ -0,0 +1,103 @@
+package com.krisped.status;
+
+import net.runelite.api.Actor;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.Skill;
+import net.runelite.api.VarPlayer;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Alt sensorene trenger fra klienten, lest én gang pr. tick (og ved
+ * login/hop/spawn) på klienttråden. Sensorene leser kun herfra – aldri fra
+ * Client – så klienttråden holdes kort, og sensorlogikken kan testes med en
+ * håndlaget snapshot. Uforanderlig, og dermed trygg å gi til andre tråder.
+ */
+public final class TickSnapshot
+{
+    public final int        tick;
+    public final GameState  gameState;
+    public final boolean    online;              // LOGGED_IN og lokal spiller finnes
+    public final String     playerName;
+    public final int        world;
+    public final WorldPoint location;            // null uten spiller; i instanser malens koordinater
+    public final int        animation;           // -1 = ingen
+    public final String     interacting;         // navn på målet, eller null
+    public final int        hp, hpMax;
+    public final int        prayer, prayerMax;
+    public final int        energy;              // 0–100 %
+    public final int        special;             // 0–100 %
+    private final int[]     xp;                  // indeks = Skill.ordinal()
+
+    public TickSnapshot(
+            int tick, GameState gameState, boolean online, String playerName, int world,
+            WorldPoint location, int animation, String interacting,
+            int hp, int hpMax, int prayer, int prayerMax, int energy, int special, int[] xp)
+    {
+        this.tick        = tick;
+        this.gameState   = gameState;
+        this.online      = online;
+        this.playerName  = playerName;
+        this.world       = world;
+        this.location    = location;
+        this.animation   = animation;
+        this.interacting = interacting;
+        this.hp          = hp;
+        this.hpMax       = hpMax;
+        this.prayer      = prayer;
+        this.prayerMax   = prayerMax;
+        this.energy      = energy;
+        this.special     = special;
+        this.xp          = xp;
+    }
+
+    /** Leser klienten – kun fra klienttråden. */
+    public static TickSnapshot capture(Client client)
+    {
+        GameState state = client.getGameState();
+        Player    p     = client.getLocalPlayer();
+        Actor     t     = p != null ? p.getInteracting() : null;
+
+        return new TickSnapshot(
+                client.getTickCount(),
+                state,
+                state == GameState.LOGGED_IN && p != null,
+                p != null ? p.getName() : null,
+                client.getWorld(),
+                location(client, p),
+                p != null ? p.getAnimation() : -1,
+                t != null ? t.getName() : null,
+                client.getBoostedSkillLevel(Skill.HITPOINTS),
+                client.getRealSkillLevel(Skill.HITPOINTS),
+                client.getBoostedSkillLevel(Skill.PRAYER),
+                client.getRealSkillLevel(Skill.PRAYER),
+                client.getEnergy() / 100,
+                client.getVarpValue(VarPlayer.SPECIAL_ATTACK_PERCENT) / 10,
+                client.getSkillExperiences().clone());
+    }
+
+    /*
+     * I instanser (Zulrah, Vorkath, Inferno …) gir getWorldLocation instansens
+     * egne koordinater; fromLocalInstance gir punktet i malområdet, som er det
+     * region‑ og områdetabellene kjenner. Utenfor instanser er de like.
+     */
+    private static WorldPoint location(Client client, Player p)
+    {
+        if (p == null)
+            return null;
+        LocalPoint local = p.getLocalLocation();
+        return local != null ? WorldPoint.fromLocalInstance(client, local) : p.getWorldLocation();
+    }
+
+    public boolean loggedIn()
+    {
+        return gameState == GameState.LOGGED_IN;
+    }
+
+    public int xp(Skill skill)
+    {
+        return xp[skill.ordinal()];
+    }
+}
@@ -0,0 +1,183 @@
+package com.krisped.status;
+
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hierarkisk tidshjul i spill‑ticks for sensorenes tidsfrister (opponent
+ * 5 s, skill 2 min, idle‑terskel …). Fire nivåer à 64 spor: nivå 0 har
+ * 1 tick pr. spor, nivå 1 64 ticks osv.; frister på høyere nivå flyttes ned
+ * når hjulet under har gått rundt. Legg til/avbryt er O(1), og en tick koster
+ * ett spor – ingen klokkekall pr. sensor pr. tick.
+ * <p>
+ * Drives av {@link #tick()} for hver GameTick. Uten ticks (innlogging,
+ * utlogget) holder {@link #sync(long)} fra heartbeat hjulet i takt med en
+ * monoton klokke. Eies av sensortråden – ikke trådsikker.
+ */
+@Slf4j
+public final class TickTimer
+{
+    public static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(600);
+
+    private static final int BITS   = 6;
+    private static final int SLOTS  = 1 << BITS;
+    private static final int MASK   = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1;
+
+    /** Planlagt frist; {@link #cancel()} er trygt å kalle flere ganger. */
+    public final class Timeout
+    {
+        private final Runnable task;
+        private long    deadline;
+        private Timeout prev, next;
+        private int     level = -1, slot;        // -1 = ikke i hjulet
+
+        private Timeout(Runnable task)
+        {
+            this.task = task;
+        }
+
+        public void cancel()
+        {
+            unlink(this);
+        }
+
+        public boolean isPending()
+        {
+            return level >= 0;
+        }
+    }
+
+    private final Timeout[][] heads = new Timeout[LEVELS][SLOTS];
+    private long current;
+    private long anchorTick;
+    private long anchorNanos;
+
+    public TickTimer(long nowNanos)
+    {
+        anchorNanos = nowNanos;
+    }
+
+    /** Antall hele ticks som dekker {@code millis} (rundet opp, minst 1). */
+    public static int ticks(long millis)
+    {
+        return (int) Math.max(1, (TimeUnit.MILLISECONDS.toNanos(millis) + TICK_NANOS - 1) / TICK_NANOS);
+    }
+
+    public long now()
+    {
+        return current;
+    }
+
+    /** Kjører {@code task} om {@code ticks} ticks (minst 1). */
+    public Timeout schedule(long ticks, Runnable task)
+    {
+        Timeout t = new Timeout(task);
+        t.deadline = current + Math.max(1, ticks);
+        insert(t);
+        return t;
+    }
+
+    /** Én GameTick. */
+    public void tick()
+    {
+        advance(1);
+    }
+
+    /**
+     * Monoton reserve: går hjulet saktere enn klokka (ingen GameTicks), tas
+     * det igjen. Kalles jevnlig, f.eks. fra heartbeat.
+     */
+    public void sync(long nowNanos)
+    {
+        long expected = (nowNanos - anchorNanos) / TICK_NANOS;
+        long behind   = expected - (current - anchorTick);
+        if (behind > 0)
+            advance(behind);
+        anchorNanos = nowNanos;
+        anchorTick  = current;
+    }
+
+    /* ───────── intern ───────── */
+
+    private void advance(long ticks)
+    {
+        for (long i = 0; i < ticks; i++)
+        {
+            current++;
+            if ((current & MASK) == 0)
+                cascade(1);
+            fire((int) (current & MASK));
+        }
+    }
+
+    /* flytt sporet for gjeldende posisjon på {@code level} ned et nivå */
+    private void cascade(int level)
+    {
+        int idx = (int) (current >>> (level * BITS)) & MASK;
+        if (idx == 0 && level + 1 < LEVELS)
+            cascade(level + 1);
+
+        Timeout t = heads[level][idx];
+        heads[level][idx] = null;
+        while (t != null)
+        {
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.level = -1;
+            insert(t);
+            t = next;
+        }
+    }
+
+    /* tar alltid første i sporet: en oppgave kan avbryte en annen i samme spor */
+    private void fire(int slot)
+    {
+        Timeout t;
+        while ((t = heads[0][slot]) != null)
+        {
+            unlink(t);
+            try
+            {
+                t.task.run();
+            }
+            catch (RuntimeException ex)
+            {
+                log.warn("Tidsfrist feilet", ex);
+            }
+        }
+    }
+
+    private void insert(Timeout t)
+    {
+        long delta = Math.min(Math.max(t.deadline - current, 0), MAX_DELTA);
+        long when  = current + delta;
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= 1L << (BITS * (level + 1)))
+            level++;
+        int slot = (int) (when >>> (BITS * level)) & MASK;
+
+        t.level = level;
+        t.slot  = slot;
+        t.prev  = null;
+        t.next  = heads[level][slot];
+        if (t.next != null)
+            t.next.prev = t;
+        heads[level][slot] = t;
+    }
+
+    private void unlink(Timeout t)
+    {
+        if (t.level < 0)
+            return;
+        if (t.prev != null)
+            t.prev.next = t.next;
+        else
+            heads[t.level][t.slot] = t.next;
+        if (t.next != null)
+            t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.level = -1;
+    }
+}
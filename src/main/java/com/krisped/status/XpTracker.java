@@ -0,0 +1,88 @@
+package com.krisped.status;
+
+import java.util.Arrays;
+import net.runelite.api.Experience;
+import net.runelite.api.Skill;
+
+/**
+ * XP pr. ferdighet over et rullerende vindu, i rene int/long‑arrayer.
+ * Hver ferdighet har en ring av {@link #BUCKETS} bøtter à ett minutt
+ * (i ticks); en bøtte nullstilles når den gjenbrukes. XP/time regnes ut fra
+ * summen av bøttene innenfor vinduet – ingen boksing, ingen lister.
+ * Eies av sensortråden.
+ */
+final class XpTracker
+{
+    static final int  BUCKETS      = 60;                           // 60 × 1 min = 1 t vindu
+    static final long BUCKET_TICKS = TickTimer.ticks(60_000);
+    static final long WINDOW_TICKS = BUCKET_TICKS * BUCKETS;
+    static final long HOUR_TICKS   = TickTimer.ticks(3_600_000);
+
+    private static final int SKILLS = Skill.values().length;
+
+    private final int[]  gained  = new int[SKILLS * BUCKETS];
+    private final long[] stamp   = new long[SKILLS * BUCKETS];      // bøttenummer, -1 = tom
+    private final long[] session = new long[SKILLS];
+    private final int[]  xp      = new int[SKILLS];                 // siste kjente XP
+    private long sessionStart;
+
+    XpTracker()
+    {
+        reset(0);
+    }
+
+    /** Ny økt – all historikk glemmes. */
+    void reset(long nowTick)
+    {
+        Arrays.fill(gained, 0);
+        Arrays.fill(stamp, -1);
+        Arrays.fill(session, 0);
+        sessionStart = nowTick;
+    }
+
+    void add(int skill, int delta, int newXp, long nowTick)
+    {
+        long b = nowTick / BUCKET_TICKS;
+        int  i = skill * BUCKETS + (int) (b % BUCKETS);
+        if (stamp[i] != b)
+        {
+            stamp[i]  = b;
+            gained[i] = 0;
+        }
+        gained[i]      += delta;
+        session[skill] += delta;
+        xp[skill]       = newXp;
+    }
+
+    long sessionXp(int skill)
+    {
+        return session[skill];
+    }
+
+    /** XP/time over vinduet (eller økta, om den er kortere enn vinduet). */
+    long xpPerHour(int skill, long nowTick)
+    {
+        long b   = nowTick / BUCKET_TICKS;
+        long sum = 0;
+        for (int k = 0, base = skill * BUCKETS; k < BUCKETS; k++)
+            if (stamp[base + k] > b - BUCKETS)
+                sum += gained[base + k];
+
+        long span = Math.min(nowTick - sessionStart, WINDOW_TICKS);
+        span = Math.max(span, BUCKET_TICKS);                         // ikke overdriv første minutt
+        return sum * HOUR_TICKS / span;
+    }
+
+    /** Sekunder til neste nivå med nåværende rate; -1 når ukjent/maks. */
+    long secondsToLevel(int skill, long nowTick)
+    {
+        int level = Experience.getLevelForXp(xp[skill]);
+        if (level >= Experience.MAX_REAL_LEVEL)
+            return -1;
+        long rate = xpPerHour(skill, nowTick);
+        if (rate <= 0)
+            return -1;
+        long left = Experience.getXpForLevel(level + 1) - xp[skill];
+        return left * 3_600 / rate;
+    }
+}
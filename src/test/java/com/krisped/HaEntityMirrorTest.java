@@ -0,0 +1,139 @@
+package com.krisped;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.Test;
+
+public class HaEntityMirrorTest
+{
+    private static final String LIGHT = "light.stue";
+    private static final String ALARM = "alarm_control_panel.hjem";
+
+    private final HaEntityMirror mirror = new HaEntityMirror();
+
+    @Test
+    public void addStoresFullState() throws IOException
+    {
+        List<String> changed = apply("{'a':{'light.stue':{'s':'on','a':{'brightness':255,"
+                + "'friendly_name':'Stue','rgb_color':[255,120,0]},'c':'01H','lc':1700000000.5}}}");
+
+        assertEquals(List.of(LIGHT), changed);
+        HaEntityMirror.Entity e = mirror.get(LIGHT);
+        assertEquals("on", e.state());
+        assertEquals("255", e.attribute("brightness"));
+        assertEquals("Stue", e.attribute("friendly_name"));
+        assertEquals("[255,120,0]", e.attribute("rgb_color"));
+        assertEquals(1700000000.5, e.lastChanged(), 0);
+        assertEquals(1700000000.5, e.lastUpdated(), 0);     // lu utelatt = lik lc
+    }
+
+    @Test
+    public void changeAppliesPlusAndMinus() throws IOException
+    {
+        apply("{'a':{'light.stue':{'s':'on','a':{'brightness':255,'color_mode':'hs'},'lc':10}}}");
+        HaEntityMirror.Entity before = mirror.get(LIGHT);
+
+        List<String> changed = apply("{'c':{'light.stue':{'+':{'a':{'brightness':40},'lu':12},"
+                + "'-':{'a':['color_mode']}}}}");
+
+        assertEquals(List.of(LIGHT), changed);
+        HaEntityMirror.Entity e = mirror.get(LIGHT);
+        assertTrue(e == before);                                // endret på plass
+        assertEquals("on", e.state());
+        assertEquals("40", e.attribute("brightness"));
+        assertNull(e.attribute("color_mode"));
+        assertEquals(10, e.lastChanged(), 0);
+        assertEquals(12, e.lastUpdated(), 0);
+
+        apply("{'c':{'light.stue':{'+':{'s':'off','lc':20}}}}");
+        assertEquals("off", e.state());
+        assertEquals(20, e.lastChanged(), 0);
+        assertEquals(20, e.lastUpdated(), 0);
+    }
+
+    @Test
+    public void nullAttributeIsRemoved() throws IOException
+    {
+        apply("{'a':{'light.stue':{'s':'on','a':{'effect':'colorloop'}}}}");
+        apply("{'c':{'light.stue':{'+':{'a':{'effect':null}}}}}");
+
+        assertNull(mirror.get(LIGHT).attribute("effect"));
+    }
+
+    @Test
+    public void addReplacesAllAttributes() throws IOException
+    {
+        apply("{'a':{'light.stue':{'s':'on','a':{'brightness':255,'effect':'colorloop'}}}}");
+        apply("{'a':{'light.stue':{'s':'off','a':{'friendly_name':'Stue'}}}}");
+
+        HaEntityMirror.Entity e = mirror.get(LIGHT);
+        assertEquals("off", e.state());
+        assertEquals(1, e.attributes().size());
+        assertEquals("Stue", e.attribute("friendly_name"));
+    }
+
+    @Test
+    public void removeDropsEntity() throws IOException
+    {
+        apply("{'a':{'light.stue':{'s':'on'},'alarm_control_panel.hjem':{'s':'disarmed'}}}");
+
+        List<String> changed = apply("{'r':['light.stue','sensor.ukjent']}");
+
+        assertEquals(List.of(LIGHT), changed);
+        assertNull(mirror.get(LIGHT));
+        assertEquals("disarmed", mirror.state(ALARM));
+    }
+
+    @Test
+    public void firstAddAfterReconnectPrunesVanishedEntities() throws IOException
+    {
+        HaSubscriptions subs = new HaSubscriptions();
+        try
+        {
+            subs.add(mirror.subscription(List.of(LIGHT, ALARM)));
+            apply("{'a':{'light.stue':{'s':'on'},'alarm_control_panel.hjem':{'s':'disarmed'}}}");
+            assertFalse(mirror.isStale());
+
+            subs.detach();                                      // socketen falt
+            assertTrue(mirror.isStale());
+            assertEquals("on", mirror.state(LIGHT));            // gammel verdi til HA svarer
+
+            List<String> changed = apply("{'a':{'alarm_control_panel.hjem':{'s':'armed_away'}}}");
+            assertFalse(mirror.isStale());
+            assertEquals(2, changed.size());
+            assertTrue(changed.contains(LIGHT));
+            assertTrue(changed.contains(ALARM));
+            assertNull(mirror.get(LIGHT));
+            assertEquals("armed_away", mirror.state(ALARM));
+
+            apply("{'a':{'light.stue':{'s':'off'}}}");          // ny entitet senere: ingen prune
+            assertEquals("armed_away", mirror.state(ALARM));
+        }
+        finally
+        {
+            subs.shutdown();
+        }
+    }
+
+    @Test
+    public void unknownKeysAndNonObjectsAreSkipped() throws IOException
+    {
+        assertTrue(apply("null").isEmpty());
+        assertTrue(apply("{'x':{'y':[1,2]},'c':{}}").isEmpty());
+    }
+
+    /* ───────── hjelpere ───────── */
+
+    private List<String> apply(String json) throws IOException
+    {
+        JsonReader in = new JsonReader(new StringReader(json.replace('\'', '"')));
+        return mirror.apply(in);
+    }
+}
@@ -0,0 +1,218 @@
+package com.krisped;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HaOutboxTest
+{
+    /* 4 (len) + 1 (live) + 2 + "kN" + 2 + "ev" + 20 B body = 33 B; 5 poster får plass i 200 */
+    private static final int SMALL = 200;
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir  = Files.createTempDirectory("kp-outbox");
+        file = dir.resolve("outbox.dat");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(dir))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void entriesSurviveReload() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, 4096);
+        box.append("update", "kp_runelite_update_kris", bytes("{\"status\":\"Offline\"}"));
+        box.append("idle", "kp_runelite_idle_kris", bytes("{\"idle\":true}"));
+        box.close();
+
+        box = new HaOutbox(file, 4096);
+        List<HaOutbox.Entry> live = box.live();
+        assertEquals(2, live.size());
+        assertEquals("update", live.get(0).key);
+        assertEquals("kp_runelite_update_kris", live.get(0).event);
+        assertArrayEquals(bytes("{\"status\":\"Offline\"}"), live.get(0).body);
+        assertEquals("idle", live.get(1).key);
+        assertArrayEquals(bytes("{\"idle\":true}"), live.get(1).body);
+        box.close();
+    }
+
+    @Test
+    public void liveKeepsNewestPerKey() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, 4096);
+        box.append("a", "ev", bytes("1"));
+        box.append("b", "ev", bytes("2"));
+        box.append("a", "ev", bytes("3"));
+
+        List<HaOutbox.Entry> live = box.live();
+        assertEquals(2, live.size());
+        assertEquals("b", live.get(0).key);
+        assertEquals("a", live.get(1).key);
+        assertArrayEquals(bytes("3"), live.get(1).body);
+
+        box.close();                             // eldre «a» er merket død også på disk
+        box = new HaOutbox(file, 4096);
+        assertEquals(2, box.live().size());
+        box.close();
+    }
+
+    @Test
+    public void markDoneAndSupersedeAreDurable() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, 4096);
+        box.append("a", "ev", bytes("1"));
+        box.append("b", "ev", bytes("2"));
+        box.append("c", "ev", bytes("3"));
+        box.markDone(box.live().get(0));
+        box.supersede("c");
+        box.close();
+
+        box = new HaOutbox(file, 4096);
+        List<HaOutbox.Entry> live = box.live();
+        assertEquals(1, live.size());
+        assertEquals("b", live.get(0).key);
+
+        box.markDone(live.get(0));
+        assertTrue(box.isEmpty());
+        box.close();
+    }
+
+    @Test
+    public void compactionKeepsLiveEntries() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, SMALL);
+        for (int i = 0; i < 4; i++)
+            box.append("k" + i, "ev", body(i));
+        List<HaOutbox.Entry> live = box.live();
+        box.markDone(live.get(0));
+        box.markDone(live.get(1));
+
+        box.append("k4", "ev", body(4));         // fyller fila
+        box.append("k5", "ev", body(5));         // krever compact
+
+        assertKeys(box, "k2", "k3", "k4", "k5");
+        box.close();
+
+        box = new HaOutbox(file, SMALL);
+        assertKeys(box, "k2", "k3", "k4", "k5");
+        List<HaOutbox.Entry> after = box.live();
+        for (int i = 0; i < after.size(); i++)
+            assertArrayEquals(body(i + 2), after.get(i).body);
+        box.close();
+    }
+
+    @Test
+    public void fullOutboxDropsOldest() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, SMALL);
+        for (int i = 0; i < 6; i++)
+            box.append("k" + i, "ev", body(i));
+
+        assertKeys(box, "k1", "k2", "k3", "k4", "k5");
+        box.close();
+    }
+
+    @Test
+    public void markDoneIgnoresEntryFromBeforeCompaction() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, SMALL);
+        for (int i = 0; i < 5; i++)
+            box.append("k" + i, "ev", body(i));
+        HaOutbox.Entry stale = box.live().get(4);   // k4 – flyttes av compact under
+        box.markDone(box.live().get(0));
+        box.append("k5", "ev", body(5));
+
+        box.markDone(stale);                     // gammel posisjon: skal ikke drepe noe annet
+        assertKeys(box, "k1", "k2", "k3", "k4", "k5");
+        box.close();
+    }
+
+    @Test
+    public void tornTailIsIgnoredOnReload() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, 4096);
+        box.append("a", "ev", bytes("1"));
+        box.append("b", "ev", bytes("2"));
+        box.close();
+
+        /* avbrutt skriving: header peker forbi en halvskrevet post */
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            ch.read(header, 0);
+            int end = header.getInt(4);
+            ch.write((ByteBuffer) ByteBuffer.allocate(4).putInt(1_000).flip(), end);
+            ch.write((ByteBuffer) ByteBuffer.allocate(4).putInt(end + 50).flip(), 4);
+        }
+
+        box = new HaOutbox(file, 4096);
+        assertKeys(box, "a", "b");
+        box.append("c", "ev", bytes("3"));
+        assertKeys(box, "a", "b", "c");
+        box.close();
+    }
+
+    @Test
+    public void closedOutboxIgnoresWrites() throws IOException
+    {
+        HaOutbox box = new HaOutbox(file, 4096);
+        box.close();
+        box.append("a", "ev", bytes("1"));
+        box.supersede("a");
+        assertTrue(box.isEmpty());
+        box.close();                             // to ganger er trygt
+
+        box = new HaOutbox(file, 4096);
+        assertTrue(box.isEmpty());
+        box.close();
+    }
+
+    /* ───────── hjelpere ───────── */
+
+    private static void assertKeys(HaOutbox box, String... keys)
+    {
+        List<String> actual = new ArrayList<>();
+        for (HaOutbox.Entry e : box.live())
+            actual.add(e.key);
+        assertEquals(List.of(keys), actual);
+    }
+
+    private static byte[] body(int i)
+    {
+        byte[] b = new byte[20];
+        Arrays.fill(b, (byte) ('a' + i));
+        return b;
+    }
+
+    private static byte[] bytes(String s)
+    {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package com.krisped;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okio.ByteString;
+import org.junit.Test;
+
+public class HaWsMessageTest
+{
+    private final HaWsMessage msg = new HaWsMessage();
+
+    @Test
+    public void readsResultInAnyFieldOrder() throws IOException
+    {
+        for (String json : new String[] {
+                "{'id':7,'type':'result','success':true,'result':null}",
+                "{'success':true,'result':{'context':{'id':'x'}},'type':'result','id':7}",
+        })
+        {
+            parse(json);
+            assertEquals("result", msg.type);
+            assertEquals(7, msg.id);
+            assertTrue(msg.success);
+            assertNull(msg.message);
+        }
+    }
+
+    @Test
+    public void readsErrorMessages() throws IOException
+    {
+        parse("{'id':3,'type':'result','success':false,'error':{'code':'unknown_command','message':'Unknown command.'}}");
+        assertFalse(msg.success);
+        assertEquals("Unknown command.", msg.message);
+
+        parse("{'type':'auth_invalid','message':'Invalid access token'}");
+        assertEquals("auth_invalid", msg.type);
+        assertEquals(-1, msg.id);
+        assertEquals("Invalid access token", msg.message);
+    }
+
+    @Test
+    public void readsEventTypeAndStateWhenEventComesFirst() throws IOException
+    {
+        parse("{'event':{'data':{'old_state':{'state':'off'},'state':'on','new_state':{'state':'on'}},"
+                + "'origin':'LOCAL','event_type':'kp_runelite_ping'},'type':'event','id':12}");
+
+        assertEquals("event", msg.type);
+        assertEquals(12, msg.id);
+        assertEquals("kp_runelite_ping", msg.eventType);
+        assertEquals("on", msg.state);
+        assertNull(msg.sub);
+    }
+
+    @Test
+    public void reuseClearsPreviousFields() throws IOException
+    {
+        parse("{'id':5,'type':'event','event':{'event_type':'x','data':{'state':'on'}}}");
+        parse("{'type':'pong'}");
+
+        assertEquals("pong", msg.type);
+        assertEquals(-1, msg.id);
+        assertNull(msg.eventType);
+        assertNull(msg.state);
+    }
+
+    @Test
+    public void readsElementsOfCoalescedFrame() throws IOException
+    {
+        JsonReader in = reader("[{'id':1,'type':'result','success':true},"
+                + "{'id':2,'type':'event','event':{'event_type':'a','data':{'state':'s'}}},"
+                + "{'id':3,'type':'pong'}]");
+        List<String> seen = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            msg.read(in);
+            seen.add(msg.id + ":" + msg.type);
+        }
+        in.endArray();
+
+        assertEquals(List.of("1:result", "2:event", "3:pong"), seen);
+    }
+
+    @Test
+    public void subscriptionReadsItsOwnEvent() throws IOException
+    {
+        HaSubscriptions subs = new HaSubscriptions();
+        try
+        {
+            HaSubscriptions.Subscription<String> sub =
+                    HaSubscriptions.events("kp_runelite_ping", HaWsMessage::eventState, s -> { });
+            subs.add(sub);
+            subs.subscribeAll(new NullSocket());            // sub får id 1
+
+            HaWsMessage routed = new HaWsMessage(subs);
+            routed.parse(json("{'id':1,'type':'event','event':{'event_type':'kp_runelite_ping','data':{'state':'pong'}}}"));
+            assertTrue(routed.sub == sub);
+            assertEquals("pong", routed.payload);
+            assertNull(routed.eventType);                   // lest av abonnementet, ikke standardfeltene
+
+            routed.parse(json("{'id':99,'type':'event','event':{'event_type':'other'}}"));
+            assertNull(routed.sub);
+            assertEquals("other", routed.eventType);
+        }
+        finally
+        {
+            subs.shutdown();
+        }
+    }
+
+    /* ───────── hjelpere ───────── */
+
+    private void parse(String json) throws IOException
+    {
+        msg.parse(json(json));
+    }
+
+    private static JsonReader reader(String json)
+    {
+        return new JsonReader(new StringReader(json(json)));
+    }
+
+    private static String json(String s)
+    {
+        return s.replace('\'', '"');
+    }
+
+    /* socket som godtar alt uten å sende noe */
+    private static final class NullSocket implements WebSocket
+    {
+        @Override public Request request()                      { return null; }
+        @Override public long queueSize()                       { return 0; }
+        @Override public boolean send(String text)              { return true; }
+        @Override public boolean send(ByteString bytes)         { return true; }
+        @Override public boolean close(int code, String reason) { return true; }
+        @Override public void cancel()                          { }
+    }
+}
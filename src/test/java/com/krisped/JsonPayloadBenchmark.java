@@ -0,0 +1,55 @@
+package com.krisped;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mikrobenchmark: String.format‑payload (gammel vei) mot {@link JsonPayload}.
+ * Kjør main direkte; skriver ns/op for begge.
+ */
+public class JsonPayloadBenchmark
+{
+    private static final int WARMUP = 2_000_000;
+    private static final int ROUNDS = 5_000_000;
+
+    private static long sink;
+
+    public static void main(String[] args)
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            run("String.format", JsonPayloadBenchmark::format, WARMUP);
+            run("JsonPayload  ", JsonPayloadBenchmark::writer, WARMUP);
+        }
+        run("String.format", JsonPayloadBenchmark::format, ROUNDS);
+        run("JsonPayload  ", JsonPayloadBenchmark::writer, ROUNDS);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static final JsonPayload PAYLOAD = new JsonPayload();
+    private static final byte[] LAST = "{\"current\":57,\"max\":99}".getBytes(StandardCharsets.UTF_8);
+
+    /* gammel vei: format + getBytes pr. tick */
+    private static int format(int i)
+    {
+        String json = String.format("{\"current\":%d,\"max\":%d}", i & 127, 99);
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /* ny vei: skriv i buffer, sammenlign med sist sendte uten kopi */
+    private static int writer(int i)
+    {
+        JsonPayload p = PAYLOAD.begin().put("current", i & 127).put("max", 99).end();
+        return p.contentEquals(LAST) ? 0 : p.length();
+    }
+
+    private static void run(String name, java.util.function.IntUnaryOperator op, int rounds)
+    {
+        long t0 = System.nanoTime();
+        long acc = 0;
+        for (int i = 0; i < rounds; i++)
+            acc += op.applyAsInt(i);
+        long ns = System.nanoTime() - t0;
+        sink += acc;
+        System.out.printf("%s %6.1f ns/op%n", name, (double) ns / rounds);
+    }
+}
@@ -0,0 +1,49 @@
+package com.krisped;
+
+import com.krisped.status.RegionIndex;
+
+/**
+ * Mikrobenchmark for {@link RegionIndex}: innlasting av regions.txt og
+ * oppslag (binærsøk) for kartlagte og ukjente region‑ID‑er.
+ * Kjør main direkte; skriver µs pr. innlasting og ns/op pr. oppslag.
+ */
+public class RegionIndexBenchmark
+{
+    private static final int LOADS  = 200;
+    private static final int WARMUP = 2_000_000;
+    private static final int ROUNDS = 10_000_000;
+
+    private static long sink;
+
+    public static void main(String[] args)
+    {
+        long t0 = System.nanoTime();
+        RegionIndex idx = RegionIndex.load(null);
+        System.out.printf("første innlasting %8.1f µs (%d regioner)%n", (System.nanoTime() - t0) / 1e3, idx.size());
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < LOADS; i++)
+            sink += RegionIndex.load(null).size();
+        System.out.printf("innlasting        %8.1f µs%n", (System.nanoTime() - t0) / 1e3 / LOADS);
+
+        for (int i = 0; i < 3; i++)
+            lookup(idx, WARMUP);
+        lookup(idx, ROUNDS);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /* region‑ID‑er spredt over hele kartet, både kartlagte og ukjente */
+    private static void lookup(RegionIndex idx, int rounds)
+    {
+        long t0 = System.nanoTime();
+        long acc = 0;
+        for (int i = 0; i < rounds; i++)
+        {
+            String name = idx.name(4_000 + (i * 7919) % 12_000);
+            acc += name != null ? name.length() : 0;
+        }
+        long ns = System.nanoTime() - t0;
+        sink += acc;
+        System.out.printf("oppslag           %8.1f ns/op%n", (double) ns / rounds);
+    }
+}
@@ -0,0 +1,146 @@
+package com.krisped;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mikrobenchmark: JsonParser‑tre (gammel vei) mot strømmende {@link HaWsMessage}
+ * på en SYNTETISK rammelogg, {@code ha-frames-synthetic.jsonl}: rammer skrevet
+ * etter HA sin protokoll (auth, result‑ack, state_changed, knapp‑event,
+ * subscribe_entities), ikke tatt opp fra en HA‑instans. Samlede array‑rammer
+ * finnes både små og som store bursts (32–48 meldinger) og pakkes ut som i
+ * {@link HaWsClient#onMessage}. Tallene sier derfor noe om relativ kost, ikke
+ * om trafikken til en bestemt installasjon.
+ * Kjør main direkte; skriver ns/ramme for alle rammer og for kun array‑rammene.
+ */
+public class WsMessageBenchmark
+{
+    private static final int WARMUP = 200_000;
+    private static final int ROUNDS = 1_000_000;
+
+    private static final String[] FRAMES = load("ha-frames-synthetic.jsonl");
+    private static final String[] ARRAYS = arrays(FRAMES);
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception
+    {
+        System.out.printf("%d rammer, %d av dem array‑rammer%n", FRAMES.length, ARRAYS.length);
+        for (int i = 0; i < 3; i++)
+        {
+            run("JsonParser ", FRAMES, WsMessageBenchmark::tree, WARMUP);
+            run("HaWsMessage", FRAMES, WsMessageBenchmark::stream, WARMUP);
+        }
+        run("JsonParser ", FRAMES, WsMessageBenchmark::tree, ROUNDS);
+        run("HaWsMessage", FRAMES, WsMessageBenchmark::stream, ROUNDS);
+        run("JsonParser  (array)", ARRAYS, WsMessageBenchmark::tree, ROUNDS);
+        run("HaWsMessage (array)", ARRAYS, WsMessageBenchmark::stream, ROUNDS);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /* gammel vei: hele treet, så oppslag pr. melding */
+    private static int tree(String text)
+    {
+        JsonElement root = JsonParser.parseString(text);
+        if (!root.isJsonArray())
+            return tree(root.getAsJsonObject());
+        int acc = 0;
+        for (JsonElement e : root.getAsJsonArray())
+            acc += tree(e.getAsJsonObject());
+        return acc;
+    }
+
+    private static int tree(JsonObject msg)
+    {
+        String type = msg.get("type").getAsString();
+        if ("event".equals(type))
+        {
+            JsonElement eventType = msg.getAsJsonObject("event").get("event_type");
+            return eventType != null ? eventType.getAsString().length() : 1;
+        }
+        return msg.has("id") ? msg.get("id").getAsInt() : 0;
+    }
+
+    private static final HaWsMessage MSG = new HaWsMessage();
+
+    /* som HaWsClient.onMessage: én leser pr. ramme, array pakkes ut */
+    private static int stream(String text) throws Exception
+    {
+        try (JsonReader in = new JsonReader(new StringReader(text)))
+        {
+            if (in.peek() != JsonToken.BEGIN_ARRAY)
+                return stream(MSG.read(in));
+            int acc = 0;
+            in.beginArray();
+            while (in.hasNext())
+                acc += stream(MSG.read(in));
+            in.endArray();
+            return acc;
+        }
+    }
+
+    private static int stream(HaWsMessage m)
+    {
+        if ("event".equals(m.type))
+            return m.eventType != null ? m.eventType.length() : 1;
+        return Math.max(m.id, 0);
+    }
+
+    /* ───────── rammelogg ───────── */
+
+    private static String[] load(String resource)
+    {
+        List<String> frames = new ArrayList<>();
+        try (InputStream in = WsMessageBenchmark.class.getResourceAsStream(resource))
+        {
+            if (in == null)
+                throw new IllegalStateException("Fant ikke " + resource);
+            BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = r.readLine()) != null)
+            {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    frames.add(line);
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new IllegalStateException("Kunne ikke lese " + resource, ex);
+        }
+        return frames.toArray(new String[0]);
+    }
+
+    private static String[] arrays(String[] frames)
+    {
+        List<String> arrays = new ArrayList<>();
+        for (String f : frames)
+            if (f.startsWith("["))
+                arrays.add(f);
+        return arrays.toArray(new String[0]);
+    }
+
+    private interface Parse { int apply(String text) throws Exception; }
+
+    private static void run(String name, String[] frames, Parse op, int rounds) throws Exception
+    {
+        long t0 = System.nanoTime();
+        long acc = 0;
+        for (int i = 0; i < rounds; i++)
+            acc += op.apply(frames[i % frames.length]);
+        long ns = System.nanoTime() - t0;
+        sink += acc;
+        System.out.printf("%s %6.1f ns/ramme%n", name, (double) ns / rounds);
+    }
+}
@@ -0,0 +1,108 @@
+package com.krisped.status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AreaIndexTest
+{
+    /* x/y 100–1000 ligger langt unna de innebygde områdene (x ≥ 1600) */
+    private static final List<String> EXTRA = List.of(
+            "# testområder",
+            "Testfelt  = 0: 100,100 300,300",
+            "Hus       = 0: 150,150 160,160          # inni Testfelt",
+            "Trekant   = 0: 400,400 600,400 400,600",
+            "Vinkel    = 1: 700,100 760,100 760,120 720,120 720,160 700,160",
+            "Tårn      = *: 800,800 810,810",
+            "Like A    = 0: 900,900 910,910",
+            "Like B    = 0: 900,900 910,910",
+            "Ugyldig   = 0: 1,2",
+            "mangler likhetstegn");
+
+    private Path extra;
+    private AreaIndex index;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        extra = Files.createTempFile("kp-areas", ".txt");
+        Files.write(extra, EXTRA, StandardCharsets.UTF_8);
+        index = AreaIndex.load(extra);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(extra);
+    }
+
+    @Test
+    public void extraFileIsAddedAndBadLinesSkipped()
+    {
+        assertEquals(AreaIndex.load(null).size() + 7, index.size());
+    }
+
+    @Test
+    public void rectangleIncludesCornersAcrossCells()
+    {
+        assertEquals("Testfelt", index.find(100, 100, 0));
+        assertEquals("Testfelt", index.find(300, 300, 0));
+        assertEquals("Testfelt", index.find(255, 129, 0));    // annen region enn hjørnene
+        assertNull(index.find(301, 300, 0));
+        assertNull(index.find(99, 200, 0));
+    }
+
+    @Test
+    public void smallestAreaWins()
+    {
+        assertEquals("Hus", index.find(155, 155, 0));
+        assertEquals("Hus", index.find(160, 160, 0));
+        assertEquals("Testfelt", index.find(161, 160, 0));
+        assertEquals("Like A", index.find(905, 905, 0));      // lik størrelse: første linje
+    }
+
+    @Test
+    public void polygonIncludesEdges()
+    {
+        assertEquals("Trekant", index.find(450, 450, 0));
+        assertEquals("Trekant", index.find(500, 500, 0));     // på hypotenusen
+        assertEquals("Trekant", index.find(400, 600, 0));     // hjørne
+        assertEquals("Trekant", index.find(400, 500, 0));
+        assertNull(index.find(501, 501, 0));
+        assertNull(index.find(599, 599, 0));                  // i avgrensningsboksen, utenfor
+    }
+
+    @Test
+    public void concavePolygon()
+    {
+        assertEquals("Vinkel", index.find(710, 150, 1));
+        assertEquals("Vinkel", index.find(750, 110, 1));
+        assertEquals("Vinkel", index.find(740, 120, 1));      // indre kant
+        assertNull(index.find(740, 150, 1));                  // i hakket
+    }
+
+    @Test
+    public void planeMustMatchUnlessWildcard()
+    {
+        assertNull(index.find(200, 200, 1));
+        assertNull(index.find(710, 150, 0));
+        for (int plane = 0; plane < 4; plane++)
+            assertEquals("Tårn", index.find(805, 805, plane));
+    }
+
+    @Test
+    public void cachedCellDoesNotLeakBetweenLookups()
+    {
+        assertEquals("Testfelt", index.find(200, 200, 0));
+        assertNull(index.find(200, 200 + 64 * 10, 0));
+        assertEquals("Testfelt", index.find(200, 200, 0));
+    }
+}
@@ -0,0 +1,97 @@
+package com.krisped.status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PoiIndexTest
+{
+    /* tilfeldige punkt i 100–1000 på plan 0; de innebygde ligger på x ≥ 2319 */
+    private static final int POIS = 500;
+
+    private Path extra;
+    private int[] xs, ys;
+    private PoiIndex index;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        Random rnd = new Random(42);
+        xs = new int[POIS];
+        ys = new int[POIS];
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < POIS; i++)
+        {
+            xs[i] = 100 + rnd.nextInt(901);
+            ys[i] = 100 + rnd.nextInt(901);
+            lines.add("test | P" + i + " = " + xs[i] + "," + ys[i]);
+        }
+        lines.add("test | Kjeller = 500,500,3");
+        lines.add("test | Ugyldig plan = 500,500,4");
+        lines.add("uten type = 1,1");
+
+        extra = Files.createTempFile("kp-pois", ".txt");
+        Files.write(extra, lines, StandardCharsets.UTF_8);
+        index = PoiIndex.load(extra);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(extra);
+    }
+
+    @Test
+    public void extraFileIsAddedAndBadLinesSkipped()
+    {
+        assertEquals(PoiIndex.load(null).size() + POIS + 1, index.size());
+    }
+
+    @Test
+    public void nearestMatchesBruteForce()
+    {
+        Random rnd = new Random(7);
+        for (int q = 0; q < 5_000; q++)
+        {
+            int x = 50 + rnd.nextInt(1_001);
+            int y = 50 + rnd.nextInt(1_001);
+
+            int expected = Integer.MAX_VALUE;
+            for (int i = 0; i < POIS; i++)
+                expected = Math.min(expected, Math.max(Math.abs(xs[i] - x), Math.abs(ys[i] - y)));
+
+            int found = index.nearest(x, y, 0);
+            assertTrue(found >= 0);
+            assertEquals(x + "," + y, expected, index.distance(found, x, y));   // ved likhet holder det med samme avstand
+            assertTrue(index.name(found).startsWith("P"));
+        }
+    }
+
+    @Test
+    public void exactHitHasDistanceZero()
+    {
+        int found = index.nearest(xs[17], ys[17], 0);
+        assertEquals(0, index.distance(found, xs[17], ys[17]));
+        assertEquals("test", index.type(found));
+    }
+
+    @Test
+    public void searchStaysOnPlane()
+    {
+        int found = index.nearest(100, 100, 3);
+        assertTrue(found >= 0);
+        assertEquals("Kjeller", index.name(found));
+        assertEquals(-1, index.nearest(100, 100, 4));
+        assertEquals(-1, index.nearest(100, 100, -1));
+    }
+}
@@ -0,0 +1,208 @@
+package com.krisped.status;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Lager {@code regions.txt} fra kartkilden {@code worldmap-regions.txt}
+ * (navngitte rektangler i region‑rutenettet). Hele overflaten innenfor
+ * kartets ytterkant får et navn, og hver navngitt overflateregion får et
+ * «(underground)»‑speil 100 regioner nord der ingen hule er kartlagt.
+ * <p>
+ * Kjør main fra prosjektroten; valgfrie argumenter er kilde og mål.
+ */
+public class RegionTableGenerator
+{
+    private static final String SOURCE = "src/test/resources/com/krisped/status/worldmap-regions.txt";
+    private static final String TARGET = "src/main/resources/com/krisped/status/regions.txt";
+
+    private static final int SURFACE_MAX_Y = 64;     // ry over dette er andre plan / under bakken
+    private static final int UNDERGROUND   = 100;    // huler ligger ~6400 ruter nord for overflaten
+    private static final int FILL_RADIUS   = 2;      // kyst/sjø nær land får landets navn
+    private static final int IDS_PER_LINE  = 8;
+
+    private static final String HEADER =
+            "# Region‑ID → stedsnavn for sensoren «location».\n"
+            + "# GENERERT av RegionTableGenerator (src/test) fra worldmap-regions.txt –\n"
+            + "# rett kilden og kjør generatoren på nytt i stedet for å endre her.\n"
+            + "# Format: id[, id …] = Navn   (flere ID‑er kan peke på samme navn)\n"
+            + "# Region‑ID = (x >> 6) << 8 | (y >> 6); Dev Tools → World point viser regionID.\n"
+            + "# Egne tillegg/rettelser: samme format i .runelite/kp-home-assistant/regions.txt\n"
+            + "# (overstyrer denne fila). Uten treff sendes «Region <id>».\n";
+
+    private static final class Rect
+    {
+        final String name;
+        final int x0, y0, x1, y1;
+
+        Rect(String name, int x0, int y0, int x1, int y1)
+        {
+            this.name = name;
+            this.x0   = Math.min(x0, x1);
+            this.y0   = Math.min(y0, y1);
+            this.x1   = Math.max(x0, x1);
+            this.y1   = Math.max(y0, y1);
+        }
+
+        int size()
+        {
+            return (x1 - x0 + 1) * (y1 - y0 + 1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        Path source = Paths.get(args.length > 0 ? args[0] : SOURCE);
+        Path target = Paths.get(args.length > 1 ? args[1] : TARGET);
+
+        List<Rect> rects = parse(Files.readAllLines(source, StandardCharsets.UTF_8));
+        Map<Integer, String> regions = new TreeMap<>();
+
+        /* kartlagte regioner: minste rektangel vinner, første linje ved likhet */
+        int minX = Integer.MAX_VALUE, maxX = 0, minY = Integer.MAX_VALUE, maxY = 0;
+        Map<Integer, Integer> bestSize = new TreeMap<>();
+        for (Rect r : rects)
+        {
+            for (int x = r.x0; x <= r.x1; x++)
+                for (int y = r.y0; y <= r.y1; y++)
+                {
+                    int id = id(x, y);
+                    Integer best = bestSize.get(id);
+                    if (best == null || r.size() < best)
+                    {
+                        bestSize.put(id, r.size());
+                        regions.put(id, r.name);
+                    }
+                }
+            if (r.y1 <= SURFACE_MAX_Y)
+            {
+                minX = Math.min(minX, r.x0);
+                maxX = Math.max(maxX, r.x1);
+                minY = Math.min(minY, r.y0);
+                maxY = Math.max(maxY, r.y1);
+            }
+        }
+
+        /* overflaten: hull fylles med nærmeste navn, ellers åpent hav */
+        Map<Integer, String> surface = new TreeMap<>();
+        for (int x = minX; x <= maxX; x++)
+            for (int y = minY; y <= maxY; y++)
+            {
+                String name = regions.get(id(x, y));
+                if (name == null)
+                    name = nearest(regions, x, y);
+                surface.put(id(x, y), name);
+            }
+
+        /* under bakken: speil av overflaten der ingen hule er kartlagt */
+        for (Map.Entry<Integer, String> e : surface.entrySet())
+        {
+            int x = e.getKey() >> 8, y = e.getKey() & 0xff;
+            int below = id(x, y + UNDERGROUND);
+            if (!e.getValue().equals("Open sea") && !regions.containsKey(below))
+                regions.put(below, e.getValue() + " (underground)");
+        }
+        regions.putAll(surface);
+
+        write(target, regions);
+        System.out.printf("%d regioner → %s%n", regions.size(), target);
+    }
+
+    private static List<Rect> parse(List<String> lines)
+    {
+        List<Rect> rects = new ArrayList<>();
+        int lineNo = 0;
+        for (String line : lines)
+        {
+            lineNo++;
+            int hash = line.indexOf('#');
+            if (hash >= 0)
+                line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+
+            int eq = line.lastIndexOf('=');
+            if (eq < 0)
+                throw new IllegalArgumentException("linje " + lineNo + ": mangler '='");
+            String name = line.substring(0, eq).trim();
+            String[] pts = line.substring(eq + 1).trim().split("\\s+");
+            int[] a = point(pts[0], lineNo);
+            int[] b = pts.length > 1 ? point(pts[1], lineNo) : a;
+            rects.add(new Rect(name, a[0], a[1], b[0], b[1]));
+        }
+        return rects;
+    }
+
+    private static int[] point(String s, int lineNo)
+    {
+        String[] xy = s.split(",");
+        if (xy.length != 2)
+            throw new IllegalArgumentException("linje " + lineNo + ": ugyldig punkt «" + s + "»");
+        return new int[] { Integer.parseInt(xy[0].trim()), Integer.parseInt(xy[1].trim()) };
+    }
+
+    /* nærmeste kartlagte overflateregion (Chebyshev), eller «Open sea» */
+    private static String nearest(Map<Integer, String> regions, int x, int y)
+    {
+        for (int d = 1; d <= FILL_RADIUS; d++)
+            for (int dx = -d; dx <= d; dx++)
+                for (int dy = -d; dy <= d; dy++)
+                {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) != d || y + dy > SURFACE_MAX_Y)
+                        continue;
+                    String name = regions.get(id(x + dx, y + dy));
+                    if (name != null)
+                        return name;
+                }
+        return "Open sea";
+    }
+
+    private static void write(Path target, Map<Integer, String> regions) throws IOException
+    {
+        Map<String, TreeSet<Integer>> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<Integer, String> e : regions.entrySet())
+            byName.computeIfAbsent(e.getValue(), n -> new TreeSet<>()).add(e.getKey());
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(target, StandardCharsets.UTF_8)))
+        {
+            out.print(HEADER);
+            char section = 0;
+            for (Map.Entry<String, TreeSet<Integer>> e : byName.entrySet())
+            {
+                char first = Character.toUpperCase(e.getKey().charAt(0));
+                if (first != section)
+                {
+                    section = first;
+                    out.printf("%n# ───────── %c ─────────%n", section);
+                }
+                List<Integer> ids = new ArrayList<>(e.getValue());
+                for (int i = 0; i < ids.size(); i += IDS_PER_LINE)
+                {
+                    StringBuilder line = new StringBuilder();
+                    for (int id : ids.subList(i, Math.min(ids.size(), i + IDS_PER_LINE)))
+                    {
+                        if (line.length() > 0)
+                            line.append(", ");
+                        line.append(id);
+                    }
+                    out.printf("%-54s = %s%n", line, e.getKey());
+                }
+            }
+        }
+    }
+
+    private static int id(int rx, int ry)
+    {
+        return rx << 8 | ry;
+    }
+}
@@ -0,0 +1,140 @@
+package com.krisped.status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class TickTimerTest
+{
+    /* grensene mellom nivåene (64, 4096, 262144) og ett tick på hver side */
+    private static final long[] DELAYS = {
+        1, 2, 63, 64, 65, 100, 4_095, 4_096, 4_097, 262_143, 262_144, 300_000,
+    };
+
+    @Test
+    public void firesOnExactTickFromStart()
+    {
+        for (long delay : DELAYS)
+            assertFiresAt(0, delay);
+    }
+
+    @Test
+    public void firesOnExactTickFromOddOffset()
+    {
+        for (long delay : DELAYS)
+        {
+            assertFiresAt(37, delay);
+            assertFiresAt(63, delay);
+            assertFiresAt(4_095, delay);
+        }
+    }
+
+    @Test
+    public void zeroDelayRunsOnNextTick()
+    {
+        TickTimer timer = new TickTimer(0);
+        long[] fired = { -1 };
+        timer.schedule(0, () -> fired[0] = timer.now());
+        timer.tick();
+        assertEquals(1, fired[0]);
+    }
+
+    @Test
+    public void cancelledTimeoutNeverFires()
+    {
+        TickTimer timer = new TickTimer(0);
+        List<Long> fired = new ArrayList<>();
+        TickTimer.Timeout near = timer.schedule(5, () -> fired.add(5L));
+        TickTimer.Timeout mid  = timer.schedule(5_000, () -> fired.add(5_000L));
+        TickTimer.Timeout far  = timer.schedule(300_000, () -> fired.add(300_000L));
+
+        for (int i = 0; i < 3; i++)
+            timer.tick();
+        near.cancel();
+        mid.cancel();
+        far.cancel();
+        far.cancel();                            // to ganger er trygt
+
+        for (int i = 0; i < 310_000; i++)
+            timer.tick();
+
+        assertTrue(fired.isEmpty());
+        assertFalse(near.isPending());
+        assertFalse(mid.isPending());
+        assertFalse(far.isPending());
+    }
+
+    @Test
+    public void cancelledFromTaskInSameSlot()
+    {
+        TickTimer timer = new TickTimer(0);
+        List<String> fired = new ArrayList<>();
+        TickTimer.Timeout[] both = new TickTimer.Timeout[2];
+        both[0] = timer.schedule(10, () -> {           // den som kjører først avbryter den andre
+            fired.add("a");
+            both[1].cancel();
+        });
+        both[1] = timer.schedule(10, () -> {
+            fired.add("b");
+            both[0].cancel();
+        });
+
+        for (int i = 0; i < 20; i++)
+            timer.tick();
+
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    public void cancelledAfterCascadeNeverFires()
+    {
+        TickTimer timer = new TickTimer(0);
+        boolean[] fired = { false };
+        TickTimer.Timeout t = timer.schedule(4_100, () -> fired[0] = true);
+
+        for (int i = 0; i < 4_096; i++)          // flyttet ned fra nivå 2
+            timer.tick();
+        assertTrue(t.isPending());
+        t.cancel();
+
+        for (int i = 0; i < 100; i++)
+            timer.tick();
+        assertFalse(fired[0]);
+    }
+
+    @Test
+    public void syncCatchesUpMissedTicks()
+    {
+        TickTimer timer = new TickTimer(0);
+        long[] fired = { -1 };
+        timer.schedule(70, () -> fired[0] = timer.now());
+
+        timer.sync(69 * TickTimer.TICK_NANOS);
+        assertEquals(-1, fired[0]);
+        timer.sync(70 * TickTimer.TICK_NANOS);
+        assertEquals(70, fired[0]);
+    }
+
+    /* ───────── hjelpere ───────── */
+
+    private static void assertFiresAt(long start, long delay)
+    {
+        TickTimer timer = new TickTimer(0);
+        for (long i = 0; i < start; i++)
+            timer.tick();
+
+        List<Long> fired = new ArrayList<>();
+        TickTimer.Timeout t = timer.schedule(delay, () -> fired.add(timer.now()));
+        for (long i = 0; i < delay + 64; i++)
+            timer.tick();
+
+        String what = "start " + start + ", delay " + delay;
+        assertEquals(what, 1, fired.size());
+        assertEquals(what, start + delay, (long) fired.get(0));
+        assertFalse(what, t.isPending());
+    }
+}
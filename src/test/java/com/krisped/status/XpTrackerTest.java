@@ -0,0 +1,80 @@
+package com.krisped.status;
+
+import static org.junit.Assert.assertEquals;
+
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+public class XpTrackerTest
+{
+    private static final int ATTACK  = Skill.ATTACK.ordinal();
+    private static final int FISHING = Skill.FISHING.ordinal();
+
+    private final XpTracker xp = new XpTracker();
+
+    @Test
+    public void sessionXpSumsPerSkillUntilReset()
+    {
+        xp.add(ATTACK, 100, 100, 0);
+        xp.add(ATTACK, 50, 150, 3_000);
+        xp.add(FISHING, 20, 20, 3_000);
+
+        assertEquals(150, xp.sessionXp(ATTACK));
+        assertEquals(20, xp.sessionXp(FISHING));
+
+        xp.reset(4_000);
+        assertEquals(0, xp.sessionXp(ATTACK));
+        assertEquals(0, xp.xpPerHour(ATTACK, 4_000));
+    }
+
+    @Test
+    public void firstMinuteCountsAsOneMinute()
+    {
+        xp.add(ATTACK, 100, 100, 10);
+
+        assertEquals(100 * 60, xp.xpPerHour(ATTACK, 10));
+        assertEquals(100 * 60, xp.xpPerHour(ATTACK, XpTracker.BUCKET_TICKS));
+        assertEquals(100 * 2, xp.xpPerHour(ATTACK, XpTracker.HOUR_TICKS / 2));
+    }
+
+    @Test
+    public void rateUsesWholeWindowAfterAnHour()
+    {
+        for (long t = 0; t < XpTracker.WINDOW_TICKS * 2; t += XpTracker.BUCKET_TICKS)
+            xp.add(FISHING, 500, 0, t);
+
+        assertEquals(500 * 60, xp.xpPerHour(FISHING, XpTracker.WINDOW_TICKS * 2 - 1));
+        assertEquals(0, xp.xpPerHour(ATTACK, XpTracker.WINDOW_TICKS * 2 - 1));
+    }
+
+    @Test
+    public void oldBucketsLeaveTheWindow()
+    {
+        xp.add(ATTACK, 1_000, 1_000, 0);
+
+        assertEquals(1_000, xp.xpPerHour(ATTACK, XpTracker.WINDOW_TICKS - 1));
+        assertEquals(0, xp.xpPerHour(ATTACK, XpTracker.WINDOW_TICKS));
+
+        xp.add(ATTACK, 200, 1_200, XpTracker.WINDOW_TICKS);     // samme bøtte i ringen: nullstilles
+        assertEquals(200, xp.xpPerHour(ATTACK, XpTracker.WINDOW_TICKS));
+        assertEquals(1_200, xp.sessionXp(ATTACK));
+    }
+
+    @Test
+    public void secondsToLevelFromCurrentRate()
+    {
+        assertEquals(-1, xp.secondsToLevel(ATTACK, 100));          // ingen rate
+
+        xp.add(ATTACK, 40, 40, 0);                                // nivå 2 ved 83 XP
+        assertEquals(2_400, xp.xpPerHour(ATTACK, 100));
+        assertEquals(43 * 3_600 / 2_400, xp.secondsToLevel(ATTACK, 100));
+    }
+
+    @Test
+    public void secondsToLevelUnknownAtMaxLevel()
+    {
+        xp.add(ATTACK, 1_000, 13_034_431, 0);                     // nivå 99
+
+        assertEquals(-1, xp.secondsToLevel(ATTACK, 100));
+    }
+}